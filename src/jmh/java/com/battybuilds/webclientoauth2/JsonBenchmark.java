@@ -0,0 +1,63 @@
+package com.battybuilds.webclientoauth2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private WokeResponse wokeResponse;
+    private AlarmRequest alarmRequest;
+    private byte[] wokeResponseJson;
+    private byte[] alarmRequestJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        wokeResponse = WokeResponse.builder()
+                .alarm1("Time to get up")
+                .alarm2("You're gonna be late")
+                .alarm3("Your boss is calling")
+                .identificationNumber("app-id")
+                .build();
+        alarmRequest = AlarmRequest.builder().day(10).hour(10).month(10).year(1972).message("Hi").build();
+        wokeResponseJson = objectMapper.writeValueAsBytes(wokeResponse);
+        alarmRequestJson = objectMapper.writeValueAsBytes(alarmRequest);
+    }
+
+    @Benchmark
+    public byte[] serializeWokeResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(wokeResponse);
+    }
+
+    @Benchmark
+    public WokeResponse deserializeWokeResponse() throws Exception {
+        return objectMapper.readValue(wokeResponseJson, WokeResponse.class);
+    }
+
+    @Benchmark
+    public byte[] serializeAlarmRequest() throws Exception {
+        return objectMapper.writeValueAsBytes(alarmRequest);
+    }
+
+    @Benchmark
+    public AlarmRequest deserializeAlarmRequest() throws Exception {
+        return objectMapper.readValue(alarmRequestJson, AlarmRequest.class);
+    }
+}
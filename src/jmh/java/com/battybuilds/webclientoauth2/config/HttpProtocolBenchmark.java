@@ -0,0 +1,100 @@
+package com.battybuilds.webclientoauth2.config;
+
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpProtocolBenchmark {
+
+    private static final int CONCURRENT_REQUESTS = 32;
+
+    @Param({"h1", "h2c-prior-knowledge"})
+    public String protocol;
+
+    private MockWebServer mockServer;
+    private BackendConnectorFactory connectorFactory;
+    private WebClient webClient;
+
+    @Setup
+    public void setUp() throws IOException {
+        mockServer = new MockWebServer();
+        if (protocol.startsWith("h2c")) {
+            mockServer.setProtocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+        }
+        mockServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setResponseCode(200)
+                        .setBody("{\"alarm1\":\"Time to get up\"}")
+                        .addHeader("Content-Type", "application/json");
+            }
+        });
+        mockServer.start();
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("pool-max-connections", "50")
+                .withProperty("pool-pending-acquire-max-count", "200")
+                .withProperty("pool-pending-acquire-timeout", "5s")
+                .withProperty("pool-max-idle-time", "30s")
+                .withProperty("pool-max-life-time", "5m")
+                .withProperty("pool-evict-in-background", "30s")
+                .withProperty("pool-leasing-strategy", "lifo")
+                .withProperty("connect-timeout", "5s")
+                .withProperty("response-timeout", "30s")
+                .withProperty("write-timeout", "10s")
+                .withProperty("http-protocol", protocol)
+                .withProperty("compression-enabled", "true")
+                .withProperty("event-loop-threads", "0");
+        connectorFactory = new BackendConnectorFactory(environment, "");
+        webClient = WebClient.builder()
+                .baseUrl(mockServer.url("/").toString())
+                .clientConnector(connectorFactory.connectorFor("abc"))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        connectorFactory.destroy();
+        mockServer.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public List<String> concurrentGets() {
+        return Flux.range(0, CONCURRENT_REQUESTS)
+                .flatMap(i -> webClient.get()
+                        .uri("/api/clock/alarms")
+                        .retrieve()
+                        .bodyToMono(String.class))
+                .collectList()
+                .block();
+    }
+}
@@ -0,0 +1,70 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtDecoderBenchmark {
+
+    private static final String AUDIENCE = "audience1234";
+
+    private JwtDecoder uncachedDecoder;
+    private JwtDecoder cachedDecoder;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        RSAKey rsaKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("caller")
+                .audience(AUDIENCE)
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .build();
+        SignedJWT signedJwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("key-1").build(), claims);
+        signedJwt.sign(new RSASSASigner(rsaKey));
+        token = signedJwt.serialize();
+
+        NimbusJwtDecoder nimbusDecoder = NimbusJwtDecoder.withPublicKey(rsaKey.toRSAPublicKey()).build();
+        uncachedDecoder = WebSecurityConfig.wrapJwtDecoderWithAudienceCheck(nimbusDecoder, AUDIENCE);
+        cachedDecoder = WebSecurityConfig.wrapJwtDecoderWithAudienceCheck(nimbusDecoder, AUDIENCE,
+                new DecodedJwtCache(10000, new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public Jwt decodeWithAudienceCheck() {
+        return uncachedDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decodeWithAudienceCheckCached() {
+        return cachedDecoder.decode(token);
+    }
+}
@@ -0,0 +1,88 @@
+package com.battybuilds.webclientoauth2.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.ClientCredentialsReactiveOAuth2AuthorizedClientProvider;
+import org.springframework.security.oauth2.client.InMemoryReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OAuth2FilterBenchmark {
+
+    private ServerOAuth2AuthorizedClientExchangeFilterFunction oauth;
+    private ClientRequest request;
+    private ExchangeFunction backend;
+
+    @Setup
+    public void setUp() {
+        ClientRegistration registration = ClientRegistration
+                .withRegistrationId("abc")
+                .tokenUri("http://localhost/token")
+                .clientId("456")
+                .clientSecret("abc")
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .build();
+        InMemoryReactiveClientRegistrationRepository clientRegistrations = new InMemoryReactiveClientRegistrationRepository(registration);
+        InMemoryReactiveOAuth2AuthorizedClientService clientService = new InMemoryReactiveOAuth2AuthorizedClientService(clientRegistrations);
+
+        OAuth2AccessToken token = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "mock-Token",
+                Instant.now(), Instant.now().plus(1, ChronoUnit.DAYS));
+        AnonymousAuthenticationToken principal = new AnonymousAuthenticationToken("anonymous", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+        clientService.saveAuthorizedClient(new OAuth2AuthorizedClient(registration, principal.getName(), token), principal).block();
+
+        ClientCredentialsReactiveOAuth2AuthorizedClientProvider provider = new ClientCredentialsReactiveOAuth2AuthorizedClientProvider();
+        provider.setAccessTokenResponseClient(grantRequest -> Mono.error(new IllegalStateException("token should be cached")));
+        AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager clientManager =
+                new AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager(clientRegistrations, clientService);
+        clientManager.setAuthorizedClientProvider(provider);
+
+        oauth = new ServerOAuth2AuthorizedClientExchangeFilterFunction(new CoalescingAuthorizedClientManager(clientManager));
+        oauth.setDefaultClientRegistrationId("abc");
+
+        request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/api/clock/alarms")).build();
+        backend = clientRequest -> Mono.just(ClientResponse.create(HttpStatus.OK).build());
+    }
+
+    @Benchmark
+    public ClientResponse withoutFilter() {
+        return backend.exchange(request).block();
+    }
+
+    @Benchmark
+    public ClientResponse withCachedToken() {
+        return oauth.filter(request, backend).block();
+    }
+}
@@ -0,0 +1,56 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Every thread hammering one tenant is the worst case for the CAS loop; spreading over many
+// tenants shows the cost of the bucket lookup itself.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final int TENANTS = 10_000;
+
+    private TokenBucketRateLimiter limiter;
+    private TokenBucketRateLimiter.Limit limit;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        limiter = new TokenBucketRateLimiter(100_000, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        limit = new TokenBucketRateLimiter.Limit(1_000_000, 1_000);
+        keys = new String[TENANTS];
+        for (int i = 0; i < TENANTS; i++) {
+            keys[i] = "/v2/alarms:tenant-" + i;
+        }
+    }
+
+    @Benchmark
+    public Duration singleHotTenant() {
+        return limiter.tryAcquire(keys[0], limit);
+    }
+
+    @Benchmark
+    public Duration manyTenants() {
+        return limiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(TENANTS)], limit);
+    }
+}
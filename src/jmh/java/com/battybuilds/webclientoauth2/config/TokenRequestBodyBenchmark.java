@@ -0,0 +1,86 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.security.oauth2.client.endpoint.OAuth2ClientCredentialsGrantRequest;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenRequestBodyBenchmark {
+
+    private AzureTokenResponseClient tokenResponseClient;
+    private OAuth2ClientCredentialsGrantRequest grantRequest;
+    private BodyInserter.Context context;
+
+    @Setup
+    public void setUp() {
+        tokenResponseClient = new AzureTokenResponseClient("abc", new ReactorClientHttpConnector(), new SimpleMeterRegistry(),
+                Duration.ofSeconds(5), 0.8);
+        grantRequest = new OAuth2ClientCredentialsGrantRequest(ClientRegistration
+                .withRegistrationId("abc")
+                .tokenUri("http://localhost/token")
+                .clientId("456")
+                .clientSecret("abc")
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .build());
+        List<HttpMessageWriter<?>> messageWriters = ExchangeStrategies.withDefaults().messageWriters();
+        context = new BodyInserter.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return messageWriters;
+            }
+
+            @Override
+            public Optional<ServerHttpRequest> serverRequest() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Map<String, Object> hints() {
+                return Collections.emptyMap();
+            }
+        };
+    }
+
+    @Benchmark
+    public Object createTokenRequestBody() {
+        return tokenResponseClient.createTokenRequestBody(grantRequest);
+    }
+
+    @Benchmark
+    public String createAndEncodeTokenRequestBody() {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://localhost/token"));
+        tokenResponseClient.createTokenRequestBody(grantRequest).insert(request, context).block();
+        return request.getBodyAsString().block();
+    }
+}
@@ -0,0 +1,46 @@
+package com.battybuilds.webclientoauth2.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+public class BaselineCheck {
+
+    private final Properties baseline;
+    private final double tolerance;
+
+    public BaselineCheck(Properties baseline, double tolerance) {
+        this.baseline = baseline;
+        this.tolerance = tolerance;
+    }
+
+    public List<String> regressions(List<LatencyRecorder.Summary> summaries, int peakThreads) {
+        List<String> regressions = new ArrayList<>();
+        for (LatencyRecorder.Summary summary : summaries) {
+            String name = summary.getName();
+            atMost(regressions, name + ".p95", summary.getP95());
+            atMost(regressions, name + ".p99", summary.getP99());
+            atLeast(regressions, name + ".throughput", summary.getThroughput());
+            String errorRate = baseline.getProperty(name + ".error-rate");
+            if (errorRate != null && summary.getErrorRate() > Double.parseDouble(errorRate)) {
+                regressions.add(String.format("%s.error-rate %.4f exceeds baseline %s", name, summary.getErrorRate(), errorRate));
+            }
+        }
+        atMost(regressions, "peak-threads", peakThreads);
+        return regressions;
+    }
+
+    private void atMost(List<String> regressions, String key, double actual) {
+        String expected = baseline.getProperty(key);
+        if (expected != null && actual > Double.parseDouble(expected) * (1 + tolerance)) {
+            regressions.add(String.format("%s %.1f exceeds baseline %s by more than %.0f%%", key, actual, expected, tolerance * 100));
+        }
+    }
+
+    private void atLeast(List<String> regressions, String key, double actual) {
+        String expected = baseline.getProperty(key);
+        if (expected != null && actual < Double.parseDouble(expected) * (1 - tolerance)) {
+            regressions.add(String.format("%s %.1f is below baseline %s by more than %.0f%%", key, actual, expected, tolerance * 100));
+        }
+    }
+}
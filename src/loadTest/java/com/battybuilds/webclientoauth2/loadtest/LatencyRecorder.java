@@ -0,0 +1,100 @@
+package com.battybuilds.webclientoauth2.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LatencyRecorder {
+
+    private final String name;
+    private final AtomicLong errors = new AtomicLong();
+    private long[] latencies = new long[1024];
+    private int count;
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized void record(long latencyNanos, boolean success) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        if (!success) {
+            errors.incrementAndGet();
+        }
+    }
+
+    public synchronized Summary summarize(double durationSeconds) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return new Summary(name, count, errors.get(), count / durationSeconds,
+                percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.95), percentileMillis(sorted, 0.99));
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    public static class Summary {
+
+        private final String name;
+        private final long requests;
+        private final long errors;
+        private final double throughput;
+        private final double p50;
+        private final double p95;
+        private final double p99;
+
+        Summary(String name, long requests, long errors, double throughput, double p50, double p95, double p99) {
+            this.name = name;
+            this.requests = requests;
+            this.errors = errors;
+            this.throughput = throughput;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public double getErrorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public double getP95() {
+            return p95;
+        }
+
+        public double getP99() {
+            return p99;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-14s requests=%-7d throughput=%8.1f/s  p50=%7.1fms  p95=%7.1fms  p99=%7.1fms  errors=%.2f%%",
+                    name, requests, throughput, p50, p95, p99, getErrorRate() * 100);
+        }
+    }
+}
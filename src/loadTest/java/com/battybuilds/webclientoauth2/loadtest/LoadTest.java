@@ -0,0 +1,264 @@
+package com.battybuilds.webclientoauth2.loadtest;
+
+import com.battybuilds.webclientoauth2.WebClientOAuth2Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class LoadTest {
+
+    private static final String AUDIENCE = "audience1234";
+    private static final Path RESULTS = Paths.get("build", "reports", "loadtest", "results.properties");
+
+    private final LoadTestSettings settings;
+    private final HttpClient httpClient;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final AtomicInteger peakThreads = new AtomicInteger();
+
+    public LoadTest(LoadTestSettings settings, ExecutorService clientExecutor) {
+        this.settings = settings;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = new LoadTestSettings();
+        System.out.println("Load test: " + settings);
+
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(16);
+        List<String> regressions;
+        try (StandInBackends backends = new StandInBackends(settings);
+             ConfigurableApplicationContext context = startApplication(backends)) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            String bearerToken = backends.signBearerToken(AUDIENCE);
+
+            LoadTest loadTest = new LoadTest(settings, clientExecutor);
+            regressions = settings.isIsolationProfile()
+                    ? loadTest.isolation(baseUrl, bearerToken)
+                    : loadTest.baseline(baseUrl, bearerToken);
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+        regressions.forEach(regression -> System.out.println("REGRESSION: " + regression));
+        System.exit(regressions.isEmpty() ? 0 : 1);
+    }
+
+    private List<String> baseline(String baseUrl, String bearerToken) throws InterruptedException, IOException {
+        List<LatencyRecorder.Summary> summaries = run(Scenario.alarmEndpoints(baseUrl, bearerToken, settings.getTenants()));
+
+        summaries.forEach(System.out::println);
+        System.out.println("peak JVM threads: " + peakThreads.get());
+        writeResults(summaries, peakThreads.get());
+
+        return new BaselineCheck(loadBaseline(settings.getBaseline()), settings.getTolerance())
+                .regressions(summaries, peakThreads.get());
+    }
+
+    // Measures abc on its own, then again while xyz is slow and heavy (see loadtest.xyz-latency-ms and
+    // loadtest.xyz-alarms). With bulkheads in place abc's p95 should stay within the tolerance.
+    private List<String> isolation(String baseUrl, String bearerToken) throws InterruptedException, IOException {
+        Scenario abc = Scenario.abcAlarms(baseUrl, bearerToken, settings.getTenants());
+        Scenario xyz = Scenario.xyzAlarmStream(baseUrl, bearerToken, settings.getTenants());
+
+        LatencyRecorder.Summary alone = run(List.of(abc)).get(0);
+        List<LatencyRecorder.Summary> contended = run(List.of(abc, xyz));
+
+        System.out.println("abc alone: " + alone);
+        contended.forEach(summary -> System.out.println("abc with slow xyz: " + summary));
+        System.out.println("peak JVM threads: " + peakThreads.get());
+        writeResults(contended, peakThreads.get());
+
+        double limit = alone.getP95() * (1 + settings.getTolerance());
+        double contendedP95 = contended.get(0).getP95();
+        if (contendedP95 > limit) {
+            return List.of(String.format("%s p95 rose from %.1fms alone to %.1fms next to slow xyz (limit %.1fms)",
+                    abc.getName(), alone.getP95(), contendedP95, limit));
+        }
+        return List.of();
+    }
+
+    public List<LatencyRecorder.Summary> run(List<Scenario> scenarios) throws InterruptedException {
+        drive(scenarios, settings.getWarmupSeconds(), null);
+
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        scenarios.forEach(scenario -> recorders.put(scenario.getName(), new LatencyRecorder(scenario.getName())));
+        peakThreads.set(threads.getThreadCount());
+        drive(scenarios, settings.getDurationSeconds(), recorders);
+
+        List<LatencyRecorder.Summary> summaries = new ArrayList<>();
+        recorders.values().forEach(recorder -> summaries.add(recorder.summarize(settings.getDurationSeconds())));
+        return summaries;
+    }
+
+    private void drive(List<Scenario> scenarios, int seconds, Map<String, LatencyRecorder> recorders)
+            throws InterruptedException {
+        if (seconds <= 0) {
+            return;
+        }
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / settings.getRequestsPerSecond();
+        long totalRequests = (long) settings.getRequestsPerSecond() * seconds;
+        long startNanos = System.nanoTime();
+        AtomicLong sequence = new AtomicLong();
+        ConcurrentLinkedQueue<CompletableFuture<?>> inFlight = new ConcurrentLinkedQueue<>();
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        scheduler.scheduleAtFixedRate(() -> peakThreads.accumulateAndGet(threads.getThreadCount(), Math::max),
+                0, 100, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(() -> {
+            long next = sequence.getAndIncrement();
+            if (next >= totalRequests) {
+                return;
+            }
+            Scenario scenario = scenarios.get((int) (next % scenarios.size()));
+            // Latency is measured from the intended send time so a stalled app cannot hide its own queueing.
+            long intendedStart = startNanos + next * periodNanos;
+            inFlight.add(httpClient.sendAsync(scenario.request(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (recorders != null) {
+                            boolean success = error == null && response.statusCode() < 400;
+                            recorders.get(scenario.getName()).record(System.nanoTime() - intendedStart, success);
+                        }
+                    }));
+        }, 0, periodNanos, TimeUnit.NANOSECONDS);
+
+        TimeUnit.NANOSECONDS.sleep(periodNanos * totalRequests);
+        while (sequence.get() < totalRequests) {
+            Thread.sleep(10);
+        }
+        scheduler.shutdownNow();
+        try {
+            CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+        } catch (Exception ignored) {
+            // failed requests are already counted as errors by their recorder
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(StandInBackends backends) {
+        return new SpringApplicationBuilder(WebClientOAuth2Application.class)
+                .properties(
+                        "server.port=0",
+                        "base-url=" + backends.wokeUrl(),
+                        "abc-base-url=" + backends.abcUrl(),
+                        "xyz-base-url=" + backends.xyzUrl(),
+                        "azure-token-url=" + backends.tokenUrl(),
+                        "spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + backends.jwkSetUrl(),
+                        "logging.level.reactor.netty=WARN")
+                .run();
+    }
+
+    private static Properties loadBaseline(String location) throws IOException {
+        Properties baseline = new Properties();
+        Path file = Paths.get(location);
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                baseline.load(in);
+            }
+            return baseline;
+        }
+        try (InputStream in = LoadTest.class.getClassLoader().getResourceAsStream(location)) {
+            if (in != null) {
+                baseline.load(in);
+            }
+        }
+        return baseline;
+    }
+
+    private static void writeResults(List<LatencyRecorder.Summary> summaries, int peakThreads) throws IOException {
+        Properties results = new Properties();
+        for (LatencyRecorder.Summary summary : summaries) {
+            results.setProperty(summary.getName() + ".throughput", format(summary.getThroughput()));
+            results.setProperty(summary.getName() + ".p50", format(summary.getP50()));
+            results.setProperty(summary.getName() + ".p95", format(summary.getP95()));
+            results.setProperty(summary.getName() + ".p99", format(summary.getP99()));
+            results.setProperty(summary.getName() + ".error-rate", format(summary.getErrorRate()));
+        }
+        results.setProperty("peak-threads", String.valueOf(peakThreads));
+        Files.createDirectories(RESULTS.getParent());
+        try (Writer writer = Files.newBufferedWriter(RESULTS)) {
+            results.store(writer, "load test results");
+        }
+        System.out.println("results written to " + RESULTS.toAbsolutePath());
+    }
+
+    private static String format(double value) {
+        return String.format("%.3f", value);
+    }
+
+    public static class Scenario {
+
+        private final String name;
+        private final Supplier<HttpRequest> request;
+
+        Scenario(String name, Supplier<HttpRequest> request) {
+            this.name = name;
+            this.request = request;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        HttpRequest request() {
+            return request.get();
+        }
+
+        static List<Scenario> alarmEndpoints(String baseUrl, String bearerToken, int tenants) {
+            List<Scenario> scenarios = new ArrayList<>();
+            scenarios.add(new Scenario("v1.alarms", () -> request(baseUrl + "/v1/alarms", bearerToken, tenants).GET().build()));
+            scenarios.add(new Scenario("v1.alarm", () -> request(baseUrl + "/v1/alarm", bearerToken, tenants)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"year\":2022,\"month\":1,\"day\":1,\"hour\":7,\"message\":\"wake up\"}"))
+                    .build()));
+            scenarios.add(abcAlarms(baseUrl, bearerToken, tenants));
+            return scenarios;
+        }
+
+        static Scenario abcAlarms(String baseUrl, String bearerToken, int tenants) {
+            return new Scenario("v2.alarms", () -> request(baseUrl + "/v2/alarms", bearerToken, tenants).GET().build());
+        }
+
+        static Scenario xyzAlarmStream(String baseUrl, String bearerToken, int tenants) {
+            return new Scenario("v3.alarms", () -> request(baseUrl + "/v3/alarms", bearerToken, tenants)
+                    .header("Accept", "application/x-ndjson")
+                    .GET()
+                    .build());
+        }
+
+        static HttpRequest.Builder request(String url, String bearerToken, int tenants) {
+            return HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Authorization", "Bearer " + bearerToken)
+                    .header("Identification-No", "tenant-" + ThreadLocalRandom.current().nextInt(tenants));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.battybuilds.webclientoauth2.loadtest;
+
+public class LoadTestSettings {
+
+    private final int requestsPerSecond = Integer.getInteger("loadtest.rate", 100);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmup", 5);
+    private final int durationSeconds = Integer.getInteger("loadtest.duration", 30);
+    private final long backendLatencyMillis = Long.getLong("loadtest.backend-latency-ms", 20);
+    private final long xyzLatencyMillis = Long.getLong("loadtest.xyz-latency-ms", backendLatencyMillis);
+    private final int xyzAlarmCount = Integer.getInteger("loadtest.xyz-alarms", 2);
+    private final long tokenLatencyMillis = Long.getLong("loadtest.token-latency-ms", 50);
+    private final int tenants = Integer.getInteger("loadtest.tenants", 1);
+    private final double errorRate = Double.parseDouble(System.getProperty("loadtest.error-rate", "0"));
+    private final double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.2"));
+    private final String baseline = System.getProperty("loadtest.baseline", "baseline.properties");
+    private final String profile = System.getProperty("loadtest.profile", "baseline");
+
+    public int getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public long getBackendLatencyMillis() {
+        return backendLatencyMillis;
+    }
+
+    public long getXyzLatencyMillis() {
+        return xyzLatencyMillis;
+    }
+
+    public int getXyzAlarmCount() {
+        return xyzAlarmCount;
+    }
+
+    public long getTokenLatencyMillis() {
+        return tokenLatencyMillis;
+    }
+
+    public int getTenants() {
+        return tenants;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public String getBaseline() {
+        return baseline;
+    }
+
+    public boolean isIsolationProfile() {
+        return "isolation".equalsIgnoreCase(profile);
+    }
+
+    @Override
+    public String toString() {
+        return "profile=" + profile + ", rate=" + requestsPerSecond + "/s, warmup=" + warmupSeconds + "s, duration=" + durationSeconds +
+                "s, backend latency=" + backendLatencyMillis + "ms, xyz latency=" + xyzLatencyMillis +
+                "ms, xyz alarms=" + xyzAlarmCount + ", token latency=" + tokenLatencyMillis + "ms, tenants=" + tenants + ", error rate=" + errorRate;
+    }
+}
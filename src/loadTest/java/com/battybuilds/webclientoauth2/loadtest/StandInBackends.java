@@ -0,0 +1,134 @@
+package com.battybuilds.webclientoauth2.loadtest;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class StandInBackends implements AutoCloseable {
+
+    private static final String ALARMS_BODY = "{\"alarm1\":\"Time to get up\",\"alarm2\":\"You're gonna be late\"," +
+            "\"alarm3\":\"Your boss is calling\"}";
+    private static final String TOKEN_BODY = "{\"token_type\":\"Bearer\",\"expires_in\":\"3599\",\"access_token\":\"load-Token\"}";
+
+    private final RSAKey signingKey;
+    private final MockWebServer woke = new MockWebServer();
+    private final MockWebServer abc = new MockWebServer();
+    private final MockWebServer xyz = new MockWebServer();
+    private final MockWebServer token = new MockWebServer();
+    private final MockWebServer jwks = new MockWebServer();
+
+    public StandInBackends(LoadTestSettings settings) throws IOException, JOSEException {
+        signingKey = new RSAKeyGenerator(2048).keyID("load-test").generate();
+        String jwkSet = new JWKSet(signingKey.toPublicJWK()).toString();
+        String xyzAlarms = alarmArray(settings.getXyzAlarmCount());
+
+        woke.setDispatcher(new StandInDispatcher(settings.getBackendLatencyMillis(), settings.getErrorRate(),
+                () -> json(ALARMS_BODY)));
+        abc.setDispatcher(new StandInDispatcher(settings.getBackendLatencyMillis(), settings.getErrorRate(),
+                () -> json(ALARMS_BODY)));
+        xyz.setDispatcher(new StandInDispatcher(settings.getXyzLatencyMillis(), settings.getErrorRate(),
+                () -> json(xyzAlarms)));
+        token.setDispatcher(new StandInDispatcher(settings.getTokenLatencyMillis(), 0, () -> json(TOKEN_BODY)));
+        jwks.setDispatcher(new StandInDispatcher(0, 0, () -> json(jwkSet)));
+
+        woke.start();
+        abc.start();
+        xyz.start();
+        token.start();
+        jwks.start();
+    }
+
+    public String wokeUrl() {
+        return woke.url("/").toString();
+    }
+
+    public String abcUrl() {
+        return abc.url("/").toString();
+    }
+
+    public String xyzUrl() {
+        return xyz.url("/").toString();
+    }
+
+    public String tokenUrl() {
+        return token.url("/token").toString();
+    }
+
+    public String jwkSetUrl() {
+        return jwks.url("/jwks").toString();
+    }
+
+    public String signBearerToken(String audience) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("load-test")
+                .audience(audience)
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(signingKey));
+        return jwt.serialize();
+    }
+
+    @Override
+    public void close() throws IOException {
+        woke.shutdown();
+        abc.shutdown();
+        xyz.shutdown();
+        token.shutdown();
+        jwks.shutdown();
+    }
+
+    private static String alarmArray(int count) {
+        StringJoiner alarms = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < count; i++) {
+            alarms.add(ALARMS_BODY);
+        }
+        return alarms.toString();
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setResponseCode(200)
+                .setBody(body)
+                .addHeader("Content-Type", "application/json");
+    }
+
+    private static class StandInDispatcher extends Dispatcher {
+
+        private final long latencyMillis;
+        private final double errorRate;
+        private final Supplier<MockResponse> response;
+
+        StandInDispatcher(long latencyMillis, double errorRate, Supplier<MockResponse> response) {
+            this.latencyMillis = latencyMillis;
+            this.errorRate = errorRate;
+            this.response = response;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            MockResponse mockResponse = ThreadLocalRandom.current().nextDouble() < errorRate
+                    ? new MockResponse().setResponseCode(500).setBody("{\"error\":\"injected failure\"}")
+                    .addHeader("Content-Type", "application/json")
+                    : response.get();
+            return mockResponse.setHeadersDelay(latencyMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.battybuilds.webclientoauth2;
 
+import com.battybuilds.webclientoauth2.config.BackendOverloadedException;
+import com.battybuilds.webclientoauth2.service.BatchTooLargeException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
@@ -8,16 +10,40 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import java.util.concurrent.TimeoutException;
+
 @Slf4j
 @ControllerAdvice
 public class ErrorHandler {
 
     @ExceptionHandler(WebClientResponseException.class)
     public ResponseEntity<WokeResponse> handleBackendException(WebClientResponseException ex) {
+        // retrieve() wraps errors raised while reading the body, including a deadline passing mid-read.
+        if (ex.getCause() instanceof TimeoutException) {
+            return handleTimeoutException((TimeoutException) ex.getCause());
+        }
         log.error("Backend threw error with status: [{}] body: {}", ex.getStatusCode(), ex.getResponseBodyAsString());
         return getErrorResponseEntity(HttpStatus.INTERNAL_SERVER_ERROR, "WAKEUP", ex.getMessage());
     }
 
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<WokeResponse> handleTimeoutException(TimeoutException ex) {
+        log.warn("Request ran out of time: {}", ex.getMessage());
+        return getErrorResponseEntity(HttpStatus.GATEWAY_TIMEOUT, "DEADLINE", ex.getMessage());
+    }
+
+    @ExceptionHandler(BackendOverloadedException.class)
+    public ResponseEntity<WokeResponse> handleBackendOverloadedException(BackendOverloadedException ex) {
+        log.warn("Shedding request: {}", ex.getMessage());
+        return getErrorResponseEntity(HttpStatus.SERVICE_UNAVAILABLE, "OVERLOADED", ex.getMessage());
+    }
+
+    @ExceptionHandler(BatchTooLargeException.class)
+    public ResponseEntity<WokeResponse> handleBatchTooLargeException(BatchTooLargeException ex) {
+        log.warn("Rejecting batch: {}", ex.getMessage());
+        return getErrorResponseEntity(HttpStatus.BAD_REQUEST, "BATCH", ex.getMessage());
+    }
+
     private ResponseEntity<WokeResponse> getErrorResponseEntity(HttpStatus statusCode, String statusContext, String message) {
         return ResponseEntity.status(statusCode)
                 .body(WokeResponse.builder().error(message + ", context: " + statusContext).build());
@@ -1,11 +1,14 @@
 package com.battybuilds.webclientoauth2.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.security.oauth2.client.endpoint.OAuth2ClientCredentialsGrantRequest;
 import org.springframework.security.oauth2.client.endpoint.WebClientReactiveClientCredentialsTokenResponseClient;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
 import org.springframework.security.oauth2.core.endpoint.OAuth2AccessTokenResponse;
 import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
 import org.springframework.util.Assert;
@@ -13,29 +16,92 @@ import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.springframework.security.oauth2.core.web.reactive.function.OAuth2BodyExtractors.oauth2AccessTokenResponse;
 
 public class AzureTokenResponseClient extends WebClientReactiveClientCredentialsTokenResponseClient {
 
+    // Matches the provider's clock skew, within which it treats a token as expired.
+    private static final Duration EXPIRY_MARGIN = Duration.ofSeconds(60);
+
     private WebClient webClient;
     private String resource;
+    private final MeterRegistry meterRegistry;
+    private final Duration tokenTimeout;
+    private final double refreshRatio;
+    private final SingleFlight<String, OAuth2AccessTokenResponse> tokenRequests = new SingleFlight<>();
+    private final Map<String, OAuth2AccessTokenResponse> issued = new ConcurrentHashMap<>();
 
-    public AzureTokenResponseClient(String resource, ClientHttpConnector loyaltyConnector) {
+    public AzureTokenResponseClient(String resource, ClientHttpConnector loyaltyConnector, MeterRegistry meterRegistry,
+                                    Duration tokenTimeout, double refreshRatio) {
         this.resource = resource;
+        this.meterRegistry = meterRegistry;
+        this.tokenTimeout = tokenTimeout;
+        this.refreshRatio = refreshRatio;
         webClient = WebClient.builder().clientConnector(loyaltyConnector).build();
     }
 
     @Override
     public Mono<OAuth2AccessTokenResponse> getTokenResponse(OAuth2ClientCredentialsGrantRequest grantRequest) {
         Assert.notNull(grantRequest, "grantRequest cannot be null");
-        return Mono.defer(() -> webClient.post()
-                .uri(grantRequest.getClientRegistration().getProviderDetails().getTokenUri())
-                .headers(this::populateTokenRequestHeaders)
-                .body(createTokenRequestBody(grantRequest))
-                .exchange()
-                .flatMap(response -> response.body(oauth2AccessTokenResponse())));
+        String registrationId = grantRequest.getClientRegistration().getRegistrationId();
+        String key = registrationId + ":" + resource;
+        // The grant carries no tenant, so Azure issues the same kind of token to every tenant. One response is
+        // shared per registration and resource until refresh-ahead would replace it, and each tenant's
+        // authorized client is built from it instead of costing its own round trip.
+        return Mono.defer(() -> {
+            OAuth2AccessTokenResponse current = issued.get(key);
+            if (current != null && isShareable(current.getAccessToken())) {
+                return Mono.just(current);
+            }
+            return tokenRequests.execute(key, () -> fetch(grantRequest, registrationId)
+                    .doOnNext(response -> issued.put(key, response)));
+        });
+    }
+
+    // Called when a backend rejects a token, so the next tenant to ask does not get the rejected one back.
+    public void forget(String tokenValue) {
+        issued.values().removeIf(response -> response.getAccessToken().getTokenValue().equals(tokenValue));
+    }
+
+    private boolean isShareable(OAuth2AccessToken token) {
+        if (token.getIssuedAt() == null || token.getExpiresAt() == null) {
+            return false;
+        }
+        Instant replaceAt = token.getExpiresAt().minus(EXPIRY_MARGIN);
+        if (refreshRatio > 0 && refreshRatio < 1) {
+            Duration lifetime = Duration.between(token.getIssuedAt(), token.getExpiresAt());
+            replaceAt = token.getIssuedAt().plusMillis((long) (lifetime.toMillis() * refreshRatio));
+        }
+        return Instant.now().isBefore(replaceAt);
+    }
+
+    private Mono<OAuth2AccessTokenResponse> fetch(OAuth2ClientCredentialsGrantRequest grantRequest, String registrationId) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return webClient.post()
+                    .uri(grantRequest.getClientRegistration().getProviderDetails().getTokenUri())
+                    .headers(this::populateTokenRequestHeaders)
+                    .body(createTokenRequestBody(grantRequest))
+                    // exchangeToMono releases the connection whether the body is read, fails to parse, or the
+                    // timeout cancels the exchange; exchange() left that to us on every error path.
+                    .exchangeToMono(response -> response.body(oauth2AccessTokenResponse()))
+                    .timeout(tokenTimeout)
+                    .doOnSuccess(response -> sample.stop(tokenTimer(registrationId, "SUCCESS")))
+                    .doOnError(error -> sample.stop(tokenTimer(registrationId, "ERROR")));
+        });
+    }
+
+    private Timer tokenTimer(String registrationId, String outcome) {
+        return Timer.builder("azure.token.requests")
+                .tag("registration", registrationId)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     private void populateTokenRequestHeaders(HttpHeaders headers) {
@@ -43,7 +109,7 @@ public class AzureTokenResponseClient extends WebClientReactiveClientCredentials
         headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
     }
 
-    private BodyInserters.FormInserter<String> createTokenRequestBody(OAuth2ClientCredentialsGrantRequest grantRequest) {
+    BodyInserters.FormInserter<String> createTokenRequestBody(OAuth2ClientCredentialsGrantRequest grantRequest) {
         BodyInserters.FormInserter<String> body = BodyInserters
                 .fromFormData(OAuth2ParameterNames.GRANT_TYPE, grantRequest.getGrantType().getValue());
         ClientRegistration clientRegistration = grantRequest.getClientRegistration();
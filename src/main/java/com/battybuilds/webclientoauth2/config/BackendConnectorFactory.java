@@ -0,0 +1,113 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+import reactor.netty.transport.ProxyProvider;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class BackendConnectorFactory implements DisposableBean {
+
+    private final Environment environment;
+    private final String springProfile;
+    private final Map<String, ConnectionProvider> connectionProviders = new ConcurrentHashMap<>();
+    private final Map<String, ClientHttpConnector> connectors = new ConcurrentHashMap<>();
+    private final Map<String, LoopResources> loopResources = new ConcurrentHashMap<>();
+
+    public BackendConnectorFactory(Environment environment,
+                                   @Value("${spring.profiles.active}") String profile) {
+        this.environment = environment;
+        springProfile = profile;
+    }
+
+    public ClientHttpConnector connectorFor(String backend) {
+        return connectors.computeIfAbsent(backend, this::connectorForProxyAndTimeout);
+    }
+
+    private ClientHttpConnector connectorForProxyAndTimeout(String backend) {
+        BackendProperties properties = new BackendProperties(environment, backend);
+        Duration writeTimeout = properties.getDuration("write-timeout");
+        HttpClient httpClient = HttpClient.create(connectionProviders.computeIfAbsent(backend, this::connectionProvider))
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getDuration("connect-timeout").toMillis())
+                .responseTimeout(properties.getDuration("response-timeout"))
+                .doOnConnected(connection -> connection
+                        .addHandlerLast(new WriteTimeoutHandler(writeTimeout.toMillis(), TimeUnit.MILLISECONDS)));
+
+        // A backend with its own event loops decodes its bodies there, so a slow or heavy backend cannot
+        // take loop time from the others; 0 keeps it on Reactor Netty's shared loops.
+        int eventLoopThreads = properties.getInt("event-loop-threads");
+        if (eventLoopThreads > 0) {
+            httpClient = httpClient.runOn(loopResources.computeIfAbsent(backend,
+                    name -> LoopResources.create("http-" + name, eventLoopThreads, true)));
+        }
+
+        httpClient = withProtocol(httpClient, properties)
+                // Decompression happens in the Netty pipeline, so maxInMemorySize limits the decompressed body.
+                .compress(properties.getBoolean("compression-enabled"));
+
+        if ("proxy".equals(springProfile)) {
+            httpClient = httpClient.proxy(proxy -> proxy.type(ProxyProvider.Proxy.HTTP)
+                    .host("internet.myproxy.com")
+                    .port(83));
+        }
+
+        return new ReactorClientHttpConnector(httpClient.wiretap(true));
+    }
+
+    private HttpClient withProtocol(HttpClient httpClient, BackendProperties properties) {
+        String protocol = properties.getString("http-protocol").trim().toLowerCase();
+        switch (protocol) {
+            case "h1":
+                return httpClient.protocol(HttpProtocol.HTTP11);
+            case "h2":
+                // ALPN negotiates h2 and falls back to HTTP/1.1 when the backend does not offer it.
+                return httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+            case "h2c":
+                return httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+            case "h2c-prior-knowledge":
+                return httpClient.protocol(HttpProtocol.H2C);
+            default:
+                throw new IllegalArgumentException("Unknown http-protocol [" + protocol + "] for backend ["
+                        + properties.getBackend() + "], expected h1, h2, h2c or h2c-prior-knowledge");
+        }
+    }
+
+    private ConnectionProvider connectionProvider(String backend) {
+        BackendProperties properties = new BackendProperties(environment, backend);
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(backend)
+                .maxConnections(properties.getInt("pool-max-connections"))
+                .pendingAcquireMaxCount(properties.getInt("pool-pending-acquire-max-count"))
+                .pendingAcquireTimeout(properties.getDuration("pool-pending-acquire-timeout"))
+                .maxIdleTime(properties.getDuration("pool-max-idle-time"))
+                .maxLifeTime(properties.getDuration("pool-max-life-time"))
+                .evictInBackground(properties.getDuration("pool-evict-in-background"))
+                .metrics(true);
+
+        if ("fifo".equalsIgnoreCase(properties.getString("pool-leasing-strategy"))) {
+            builder.fifo();
+        } else {
+            builder.lifo();
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void destroy() {
+        connectionProviders.values().forEach(ConnectionProvider::dispose);
+        loopResources.values().forEach(LoopResources::dispose);
+    }
+}
@@ -0,0 +1,92 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.AutoTimer;
+import org.springframework.boot.actuate.metrics.web.reactive.client.DefaultWebClientExchangeTagsProvider;
+import org.springframework.boot.actuate.metrics.web.reactive.client.MetricsWebClientFilterFunction;
+import org.springframework.boot.actuate.metrics.web.reactive.client.WebClientExchangeTagsProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class BackendFilterFactory {
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    public BackendFilterFactory(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public List<ExchangeFilterFunction> beforeAuthorization(String backend, ExchangeStrategies strategies) {
+        BackendProperties properties = new BackendProperties(environment, backend);
+        List<ExchangeFilterFunction> filters = new ArrayList<>();
+        if (properties.getBoolean("response-cache-enabled")) {
+            filters.add(new ResponseCacheFilter(properties.getInt("response-cache-max-size"),
+                    properties.getDuration("response-cache-ttl"),
+                    properties.getDuration("response-cache-max-age"),
+                    strategies));
+        }
+        if (properties.getBoolean("request-coalescing-enabled")) {
+            filters.add(new RequestCoalescingFilter(strategies));
+        }
+        return filters;
+    }
+
+    public List<ExchangeFilterFunction> afterAuthorization(String backend) {
+        BackendProperties properties = new BackendProperties(environment, backend);
+        List<ExchangeFilterFunction> filters = new ArrayList<>();
+        if (properties.getBoolean("hedging-enabled")) {
+            filters.add(new HedgingFilter(backend, properties.getDouble("hedging-percentile"),
+                    properties.getDuration("hedging-min-delay"),
+                    properties.getDouble("hedging-budget-ratio"),
+                    meterRegistry));
+        }
+        if (properties.getBoolean("concurrency-limit-enabled") || isHttp2(properties)) {
+            filters.add(new ConcurrencyLimitFilter(backend, concurrencyLimiter(properties), meterRegistry));
+        }
+        filters.add(new DeadlineFilter());
+        filters.add(new MetricsWebClientFilterFunction(meterRegistry, backendTags(backend), "http.client.requests",
+                AutoTimer.ENABLED));
+        filters.add(new ResponseSizeFilter(meterRegistry, backend));
+        return filters;
+    }
+
+    private AimdConcurrencyLimiter concurrencyLimiter(BackendProperties properties) {
+        int streamLimit = isHttp2(properties) ? http2StreamLimit(properties) : Integer.MAX_VALUE;
+        if (!properties.getBoolean("concurrency-limit-enabled")) {
+            return new AimdConcurrencyLimiter(streamLimit, streamLimit, streamLimit, Duration.ofNanos(Long.MAX_VALUE), 1.0);
+        }
+        return new AimdConcurrencyLimiter(Math.min(properties.getInt("concurrency-limit-initial"), streamLimit),
+                Math.min(properties.getInt("concurrency-limit-min"), streamLimit),
+                Math.min(properties.getInt("concurrency-limit-max"), streamLimit),
+                properties.getDuration("concurrency-limit-latency-threshold"),
+                properties.getDouble("concurrency-limit-backoff-ratio"));
+    }
+
+    private static boolean isHttp2(BackendProperties properties) {
+        return properties.getString("http-protocol").trim().toLowerCase().startsWith("h2");
+    }
+
+    // Over HTTP/2 every request is a stream on one of pool-max-connections connections, so the pool no longer
+    // bounds what is in flight. The limiter caps it at http2-max-concurrent-streams per connection instead;
+    // over HTTP/1.1 the pool already does.
+    private static int http2StreamLimit(BackendProperties properties) {
+        long limit = (long) properties.getInt("pool-max-connections") * properties.getInt("http2-max-concurrent-streams");
+        return (int) Math.min(limit, Integer.MAX_VALUE);
+    }
+
+    private WebClientExchangeTagsProvider backendTags(String backend) {
+        WebClientExchangeTagsProvider defaultTags = new DefaultWebClientExchangeTagsProvider();
+        return (request, response, throwable) -> Tags.of(defaultTags.tags(request, response, throwable))
+                .and("backend", backend);
+    }
+}
@@ -0,0 +1,8 @@
+package com.battybuilds.webclientoauth2.config;
+
+public class BackendOverloadedException extends RuntimeException {
+
+    public BackendOverloadedException(String backend, int limit) {
+        super("Backend [" + backend + "] is at its concurrency limit of " + limit);
+    }
+}
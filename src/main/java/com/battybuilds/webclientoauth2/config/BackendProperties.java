@@ -0,0 +1,41 @@
+package com.battybuilds.webclientoauth2.config;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+public class BackendProperties {
+
+    private final Environment environment;
+    private final String backend;
+
+    public BackendProperties(Environment environment, String backend) {
+        this.environment = environment;
+        this.backend = backend;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public String getString(String name) {
+        return environment.getProperty(backend + "-" + name, environment.getRequiredProperty(name));
+    }
+
+    public int getInt(String name) {
+        return Integer.parseInt(getString(name).trim());
+    }
+
+    public double getDouble(String name) {
+        return Double.parseDouble(getString(name).trim());
+    }
+
+    public boolean getBoolean(String name) {
+        return Boolean.parseBoolean(getString(name).trim());
+    }
+
+    public Duration getDuration(String name) {
+        return DurationStyle.detectAndParse(getString(name).trim());
+    }
+}
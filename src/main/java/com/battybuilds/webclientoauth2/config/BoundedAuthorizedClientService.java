@@ -0,0 +1,92 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+public class BoundedAuthorizedClientService implements ReactiveOAuth2AuthorizedClientService {
+
+    private final Cache<String, OAuth2AuthorizedClient> authorizedClients;
+
+    public BoundedAuthorizedClientService(long maxSize, MeterRegistry meterRegistry, String clientRegistrationId) {
+        this(maxSize, meterRegistry, clientRegistrationId, evicted -> {
+        });
+    }
+
+    // onEvicted sees clients dropped by the size bound or token expiry, not explicit removals, so the
+    // decorators around this cache can let go of whatever they keep per client.
+    public BoundedAuthorizedClientService(long maxSize, MeterRegistry meterRegistry, String clientRegistrationId,
+                                          Consumer<OAuth2AuthorizedClient> onEvicted) {
+        authorizedClients = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilAccessTokenExpires())
+                .<String, OAuth2AuthorizedClient>removalListener((key, evicted, cause) -> {
+                    if (cause.wasEvicted() && evicted != null) {
+                        onEvicted.accept(evicted);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, authorizedClients, "oauth2.authorized.clients",
+                "registration", clientRegistrationId);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends OAuth2AuthorizedClient> Mono<T> loadAuthorizedClient(String clientRegistrationId, String principalName) {
+        return Mono.fromSupplier(() -> (T) authorizedClients.getIfPresent(key(clientRegistrationId, principalName)));
+    }
+
+    @Override
+    public Mono<Void> saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+        return Mono.fromRunnable(() -> authorizedClients.put(
+                key(authorizedClient.getClientRegistration().getRegistrationId(), principal.getName()), authorizedClient));
+    }
+
+    @Override
+    public Mono<Void> removeAuthorizedClient(String clientRegistrationId, String principalName) {
+        return Mono.fromRunnable(() -> authorizedClients.invalidate(key(clientRegistrationId, principalName)));
+    }
+
+    long size() {
+        authorizedClients.cleanUp();
+        return authorizedClients.estimatedSize();
+    }
+
+    private static String key(String clientRegistrationId, String principalName) {
+        return clientRegistrationId + ":" + principalName;
+    }
+
+    private static class UntilAccessTokenExpires implements Expiry<String, OAuth2AuthorizedClient> {
+
+        @Override
+        public long expireAfterCreate(String key, OAuth2AuthorizedClient value, long currentTime) {
+            OAuth2AccessToken token = value.getAccessToken();
+            if (token.getExpiresAt() == null) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(0, Duration.between(Instant.now(), token.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, OAuth2AuthorizedClient value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, OAuth2AuthorizedClient value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
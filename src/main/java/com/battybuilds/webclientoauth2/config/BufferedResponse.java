@@ -0,0 +1,40 @@
+package com.battybuilds.webclientoauth2.config;
+
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class BufferedResponse {
+
+    private final int statusCode;
+    private final HttpHeaders headers;
+    private final byte[] body;
+
+    private BufferedResponse(int statusCode, HttpHeaders headers, byte[] body) {
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public static Mono<BufferedResponse> from(ClientResponse response) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(response.headers().asHttpHeaders());
+        return response.bodyToMono(byte[].class)
+                .defaultIfEmpty(new byte[0])
+                .map(body -> new BufferedResponse(response.rawStatusCode(), HttpHeaders.readOnlyHttpHeaders(headers), body));
+    }
+
+    public ClientResponse toClientResponse(ExchangeStrategies strategies) {
+        return ClientResponse.create(statusCode, strategies)
+                .headers(responseHeaders -> responseHeaders.addAll(headers))
+                .body(Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body))))
+                .build();
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+}
@@ -0,0 +1,25 @@
+package com.battybuilds.webclientoauth2.config;
+
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientManager;
+import reactor.core.publisher.Mono;
+
+public class CoalescingAuthorizedClientManager implements ReactiveOAuth2AuthorizedClientManager {
+
+    private final ReactiveOAuth2AuthorizedClientManager delegate;
+    private final SingleFlight<String, OAuth2AuthorizedClient> authorizations = new SingleFlight<>();
+
+    public CoalescingAuthorizedClientManager(ReactiveOAuth2AuthorizedClientManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Mono<OAuth2AuthorizedClient> authorize(OAuth2AuthorizeRequest authorizeRequest) {
+        String key = authorizeRequest.getClientRegistrationId() + ":" + authorizeRequest.getPrincipal().getName();
+        // Callers share one token fetch, so each waits only as long as its own deadline allows
+        // without cancelling the fetch for the others.
+        return authorizations.execute(key, () -> delegate.authorize(authorizeRequest))
+                .transform(Deadline.remainingBudget());
+    }
+}
@@ -0,0 +1,77 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ConcurrencyLimitFilter implements ExchangeFilterFunction {
+
+    private final String backend;
+    private final AimdConcurrencyLimiter limiter;
+    private final Counter rejections;
+
+    public ConcurrencyLimitFilter(String backend, AimdConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+        this.backend = backend;
+        this.limiter = limiter;
+        this.rejections = Counter.builder("http.client.concurrency.rejected")
+                .tag("backend", backend)
+                .register(meterRegistry);
+        Gauge.builder("http.client.concurrency.limit", limiter, AimdConcurrencyLimiter::getLimit)
+                .tag("backend", backend)
+                .register(meterRegistry);
+        Gauge.builder("http.client.concurrency.in.flight", limiter, AimdConcurrencyLimiter::getInFlight)
+                .tag("backend", backend)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            if (!limiter.tryAcquire()) {
+                rejections.increment();
+                return Mono.error(new BackendOverloadedException(backend, limiter.getLimit()));
+            }
+            long start = System.nanoTime();
+            Slot slot = new Slot();
+            return next.exchange(request)
+                    .map(response -> holdSlotUntilBodyEnds(response, slot, System.nanoTime() - start))
+                    .doOnError(error -> slot.release(isBackendFailure(error) ? limiter::onDropped : limiter::onIgnored))
+                    .doOnCancel(() -> slot.release(limiter::onIgnored));
+        });
+    }
+
+    // The slot stays taken while the body streams, so NDJSON and pass-through reads count as in flight
+    // until they finish. Latency is judged on time to headers.
+    private ClientResponse holdSlotUntilBodyEnds(ClientResponse response, Slot slot, long latencyNanos) {
+        Runnable outcome = response.statusCode().is5xxServerError()
+                ? limiter::onDropped
+                : () -> limiter.onSuccess(latencyNanos);
+        return response.mutate()
+                .body(body -> body.doFinally(signal -> slot.release(outcome)))
+                .build();
+    }
+
+    // Only failures talking to the backend count against it. A TimeoutException here is the caller's
+    // deadline (see DeadlineFilter) and says nothing about how loaded the backend is.
+    private static boolean isBackendFailure(Throwable error) {
+        return error instanceof WebClientRequestException;
+    }
+
+    private static class Slot {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release(Runnable outcome) {
+            if (released.compareAndSet(false, true)) {
+                outcome.run();
+            }
+        }
+    }
+}
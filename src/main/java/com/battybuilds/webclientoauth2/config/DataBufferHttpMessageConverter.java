@@ -0,0 +1,63 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.netty.buffer.ByteBuf;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+// Lets the pass-through reads hand the backend's buffers to a ResponseBodyEmitter as they are. The servlet
+// stream only takes byte arrays, so the bytes are copied from a Netty buffer through Netty's reused scratch
+// array, or written straight from a heap buffer's array, rather than into a new array per buffer.
+@Component
+public class DataBufferHttpMessageConverter extends AbstractHttpMessageConverter<DataBuffer> {
+
+    public DataBufferHttpMessageConverter() {
+        super(MediaType.APPLICATION_OCTET_STREAM, MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return DataBuffer.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected DataBuffer readInternal(Class<? extends DataBuffer> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("DataBuffer bodies are write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(DataBuffer buffer, HttpOutputMessage outputMessage) throws IOException {
+        try {
+            OutputStream body = outputMessage.getBody();
+            if (buffer instanceof NettyDataBuffer) {
+                ByteBuf byteBuf = ((NettyDataBuffer) buffer).getNativeBuffer();
+                byteBuf.getBytes(byteBuf.readerIndex(), body, byteBuf.readableBytes());
+                return;
+            }
+            ByteBuffer byteBuffer = buffer.asByteBuffer();
+            if (byteBuffer.hasArray()) {
+                body.write(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
+            } else {
+                StreamUtils.copy(buffer.asInputStream(), body);
+            }
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+}
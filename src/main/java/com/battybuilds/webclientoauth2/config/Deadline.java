@@ -0,0 +1,101 @@
+package com.battybuilds.webclientoauth2.config;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+public final class Deadline {
+
+    private static final String CONTEXT_KEY = Deadline.class.getName();
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    public static Optional<Deadline> current(ContextView context) {
+        return context.getOrEmpty(CONTEXT_KEY);
+    }
+
+    public static Function<Context, Context> fromRequestTimeout(Long requestTimeoutMillis) {
+        if (requestTimeoutMillis == null) {
+            return Function.identity();
+        }
+        Deadline deadline = after(Duration.ofMillis(Math.max(requestTimeoutMillis, 0)));
+        return context -> context.put(CONTEXT_KEY, current(context).map(deadline::earliest).orElse(deadline));
+    }
+
+    public static <T> Function<Mono<T>, Mono<T>> within(Duration budget) {
+        return mono -> Mono.deferContextual(context -> {
+            Deadline deadline = current(context).map(caller -> caller.earliest(after(budget))).orElse(after(budget));
+            return deadline.bound(mono).contextWrite(Context.of(CONTEXT_KEY, deadline));
+        });
+    }
+
+    // Shares one deadline across every call the Flux makes; it does not time the Flux itself, so each call that
+    // runs out of budget fails on its own.
+    public static <T> Function<Flux<T>, Flux<T>> allWithin(Duration budget) {
+        return flux -> Flux.deferContextual(context -> {
+            Deadline deadline = current(context).map(caller -> caller.earliest(after(budget))).orElse(after(budget));
+            return flux.contextWrite(Context.of(CONTEXT_KEY, deadline));
+        });
+    }
+
+    public static <T> Function<Mono<T>, Mono<T>> remainingBudget() {
+        return mono -> Mono.deferContextual(context -> current(context)
+                .map(deadline -> deadline.bound(mono))
+                .orElse(mono));
+    }
+
+    public static Context cleared(Context context) {
+        return context.delete(CONTEXT_KEY);
+    }
+
+    public static <T> Function<Flux<T>, Flux<T>> streamWithin(Duration idleTimeout) {
+        return flux -> Flux.deferContextual(context -> {
+            Optional<Deadline> deadline = current(context);
+            return flux.timeout(Mono.delay(deadline.map(d -> d.capped(idleTimeout)).orElse(idleTimeout)),
+                    next -> Mono.delay(deadline.map(d -> d.capped(idleTimeout)).orElse(idleTimeout)));
+        });
+    }
+
+    public Duration remaining() {
+        long remaining = expiresAtNanos - System.nanoTime();
+        return remaining > 0 ? Duration.ofNanos(remaining) : Duration.ZERO;
+    }
+
+    public boolean isExpired() {
+        return remaining().isZero();
+    }
+
+    Deadline earliest(Deadline other) {
+        return expiresAtNanos - other.expiresAtNanos <= 0 ? this : other;
+    }
+
+    TimeoutException exceeded() {
+        return new TimeoutException("Request deadline exceeded");
+    }
+
+    private Duration capped(Duration timeout) {
+        Duration remaining = remaining();
+        return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
+    private <T> Mono<T> bound(Mono<T> mono) {
+        if (isExpired()) {
+            return Mono.error(exceeded());
+        }
+        return mono.timeout(remaining(), Mono.error(this::exceeded));
+    }
+}
@@ -0,0 +1,50 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientRequest;
+
+import java.time.Duration;
+
+public class DeadlineFilter implements ExchangeFilterFunction {
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.deferContextual(context -> Deadline.current(context)
+                .map(deadline -> exchangeWithin(request, next, deadline))
+                .orElseGet(() -> next.exchange(request)));
+    }
+
+    private Mono<ClientResponse> exchangeWithin(ClientRequest request, ExchangeFunction next, Deadline deadline) {
+        Duration remaining = deadline.remaining();
+        if (remaining.isZero()) {
+            return Mono.error(deadline.exceeded());
+        }
+        // The timeout bounds connection acquire and the wait for headers; the Netty response timeout
+        // closes the connection if the backend stalls mid-read after we have stopped waiting.
+        ClientRequest bounded = ClientRequest.from(request)
+                .httpRequest(httpRequest -> {
+                    Object nativeRequest = httpRequest.getNativeRequest();
+                    if (nativeRequest instanceof HttpClientRequest) {
+                        ((HttpClientRequest) nativeRequest).responseTimeout(remaining);
+                    }
+                })
+                .build();
+        // The Netty response timeout surfaces as a ReadTimeoutException, wrapped in a WebClientRequestException
+        // before the headers and raw from the body; both are the deadline passing, not a backend failure.
+        return next.exchange(bounded)
+                .timeout(remaining, Mono.error(deadline::exceeded))
+                .onErrorMap(DeadlineFilter::isReadTimeout, error -> deadline.exceeded())
+                .map(response -> response.mutate()
+                        .body(body -> body.onErrorMap(DeadlineFilter::isReadTimeout, error -> deadline.exceeded()))
+                        .build());
+    }
+
+    private static boolean isReadTimeout(Throwable error) {
+        return error instanceof ReadTimeoutException || error.getCause() instanceof ReadTimeoutException;
+    }
+}
@@ -0,0 +1,72 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.function.Function;
+
+public class DecodedJwtCache {
+
+    private final Cache<String, DecodedJwt> cache;
+
+    public DecodedJwtCache(long maxSize, MeterRegistry meterRegistry) {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.decode.cache");
+    }
+
+    public DecodedJwt get(String token, Function<String, DecodedJwt> decoder) {
+        return cache.get(hash(token), key -> decoder.apply(token));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Value
+    public static class DecodedJwt {
+        Jwt jwt;
+        boolean audienceMatches;
+    }
+
+    private static class UntilTokenExpires implements Expiry<String, DecodedJwt> {
+
+        @Override
+        public long expireAfterCreate(String key, DecodedJwt value, long currentTime) {
+            Instant expiresAt = value.getJwt().getExpiresAt();
+            if (expiresAt == null) {
+                return 0;
+            }
+            return Math.max(0, Duration.between(Instant.now(), expiresAt).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, DecodedJwt value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, DecodedJwt value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
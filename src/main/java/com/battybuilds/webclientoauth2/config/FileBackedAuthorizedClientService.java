@@ -0,0 +1,303 @@
+package com.battybuilds.webclientoauth2.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+public class FileBackedAuthorizedClientService implements ReactiveOAuth2AuthorizedClientService {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final String SUFFIX = ".token";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final long NO_INSTANT = Long.MIN_VALUE;
+    private static final int RESTORE_CONCURRENCY = 4;
+
+    private final ReactiveOAuth2AuthorizedClientService delegate;
+    private final ReactiveClientRegistrationRepository clientRegistrations;
+    private final Path directory;
+    private final SecretKey key;
+    private final SecureRandom random = new SecureRandom();
+    private final Set<OAuth2AuthorizedClient> restoring = ConcurrentHashMap.newKeySet();
+
+    public FileBackedAuthorizedClientService(ReactiveOAuth2AuthorizedClientService delegate,
+                                             ReactiveClientRegistrationRepository clientRegistrations,
+                                             Path directory, String base64Key) {
+        this.delegate = delegate;
+        this.clientRegistrations = clientRegistrations;
+        this.directory = directory;
+        byte[] keyBytes = Base64.getDecoder().decode(base64Key);
+        if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
+            throw new IllegalArgumentException("token-store-key must be a base64 AES key of 16, 24 or 32 bytes, got "
+                    + keyBytes.length);
+        }
+        this.key = new SecretKeySpec(keyBytes, "AES");
+    }
+
+    @Override
+    public <T extends OAuth2AuthorizedClient> Mono<T> loadAuthorizedClient(String clientRegistrationId, String principalName) {
+        return delegate.loadAuthorizedClient(clientRegistrationId, principalName);
+    }
+
+    @Override
+    public Mono<Void> saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+        if (restoring.contains(authorizedClient)) {
+            return delegate.saveAuthorizedClient(authorizedClient, principal);
+        }
+        return delegate.saveAuthorizedClient(authorizedClient, principal)
+                .then(Mono.fromRunnable(() -> write(authorizedClient, principal.getName()))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorResume(error -> {
+                            log.warn("Unable to persist token for registration [{}]: {}",
+                                    authorizedClient.getClientRegistration().getRegistrationId(), error.getMessage());
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    @Override
+    public Mono<Void> removeAuthorizedClient(String clientRegistrationId, String principalName) {
+        return delegate.removeAuthorizedClient(clientRegistrationId, principalName)
+                .then(Mono.fromCallable(() -> Files.deleteIfExists(file(clientRegistrationId, principalName)))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorResume(IOException.class, error -> Mono.just(false)))
+                .then();
+    }
+
+    // Wired to the cache's eviction listener, so the directory shrinks with the cache instead of keeping a
+    // file for every tenant ever seen. A client saved again since it was evicted keeps its new file.
+    public void onEvicted(OAuth2AuthorizedClient evicted) {
+        String registrationId = evicted.getClientRegistration().getRegistrationId();
+        delegate.loadAuthorizedClient(registrationId, evicted.getPrincipalName())
+                .hasElement()
+                .filter(cached -> !cached)
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(uncached -> deleteQuietly(file(registrationId, evicted.getPrincipalName())));
+    }
+
+    // Saving through the caller's chain rather than the delegate lets outer decorators, such as
+    // refresh-ahead, pick up the restored clients as if they had just been fetched. The files are not
+    // written back, and a client fetched while the restore was running is not overwritten.
+    public Mono<Void> restoreInto(ReactiveOAuth2AuthorizedClientService target) {
+        return Mono.fromCallable(this::storedFiles)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapIterable(files -> files)
+                .flatMap(this::read, RESTORE_CONCURRENCY)
+                .concatMap(restored -> isCached(restored)
+                        .flatMap(cached -> cached ? Mono.empty() : restore(restored, target)))
+                .onErrorResume(IOException.class, error -> {
+                    log.warn("Unable to restore tokens from [{}]: {}", directory, error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Boolean> isCached(OAuth2AuthorizedClient restored) {
+        return delegate.loadAuthorizedClient(restored.getClientRegistration().getRegistrationId(),
+                restored.getPrincipalName()).hasElement();
+    }
+
+    private Mono<Void> restore(OAuth2AuthorizedClient restored, ReactiveOAuth2AuthorizedClientService target) {
+        return Mono.defer(() -> {
+            restoring.add(restored);
+            return target.saveAuthorizedClient(restored, TenantAuthentication.of(restored.getPrincipalName()));
+        }).doFinally(signal -> restoring.remove(restored));
+    }
+
+    private List<Path> storedFiles() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+
+    private Mono<OAuth2AuthorizedClient> read(Path file) {
+        return Mono.fromCallable(() -> decode(decrypt(readFile(file), file.getFileName().toString())))
+                .flatMap(stored -> clientRegistrations.findByRegistrationId(stored.registrationId)
+                        .map(registration -> new OAuth2AuthorizedClient(registration, stored.principalName, stored.accessToken)))
+                .filter(restored -> isUnexpired(restored.getAccessToken()))
+                .switchIfEmpty(Mono.fromRunnable(() -> deleteQuietly(file)))
+                .onErrorResume(error -> {
+                    log.warn("Ignoring unreadable token file [{}]: {}", file.getFileName(), error.getMessage());
+                    deleteQuietly(file);
+                    return Mono.empty();
+                });
+    }
+
+    private void write(OAuth2AuthorizedClient authorizedClient, String principalName) {
+        String registrationId = authorizedClient.getClientRegistration().getRegistrationId();
+        Path target = file(registrationId, principalName);
+        byte[] contents = encrypt(encode(registrationId, principalName, authorizedClient.getAccessToken()),
+                target.getFileName().toString());
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, "token", ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(contents);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] readFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the whole file is in the buffer
+            }
+            return buffer.array();
+        }
+    }
+
+    private static byte[] encode(String registrationId, String principalName, OAuth2AccessToken token) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(registrationId);
+            out.writeUTF(principalName);
+            out.writeUTF(token.getTokenValue());
+            out.writeLong(token.getIssuedAt() == null ? NO_INSTANT : token.getIssuedAt().toEpochMilli());
+            out.writeLong(token.getExpiresAt() == null ? NO_INSTANT : token.getExpiresAt().toEpochMilli());
+            out.writeShort(token.getScopes().size());
+            for (String scope : token.getScopes()) {
+                out.writeUTF(scope);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static DecodedToken decode(byte[] plain) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(plain))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported token file version " + version);
+            }
+            String registrationId = in.readUTF();
+            String principalName = in.readUTF();
+            String tokenValue = in.readUTF();
+            long issuedAt = in.readLong();
+            long expiresAt = in.readLong();
+            int scopeCount = in.readShort();
+            Set<String> scopes = new HashSet<>(scopeCount);
+            for (int i = 0; i < scopeCount; i++) {
+                scopes.add(in.readUTF());
+            }
+            OAuth2AccessToken token = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, tokenValue,
+                    issuedAt == NO_INSTANT ? null : Instant.ofEpochMilli(issuedAt),
+                    expiresAt == NO_INSTANT ? null : Instant.ofEpochMilli(expiresAt),
+                    scopes);
+            return new DecodedToken(registrationId, principalName, token);
+        }
+    }
+
+    // The file name is bound in as associated data so a file copied over another tenant's name fails to decrypt.
+    private byte[] encrypt(byte[] plain, String fileName) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(fileName.getBytes(StandardCharsets.UTF_8));
+            byte[] encrypted = cipher.doFinal(plain);
+            return ByteBuffer.allocate(IV_LENGTH + encrypted.length).put(iv).put(encrypted).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to encrypt token", e);
+        }
+    }
+
+    private byte[] decrypt(byte[] contents, String fileName) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, contents, 0, IV_LENGTH));
+        cipher.updateAAD(fileName.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(contents, IV_LENGTH, contents.length - IV_LENGTH);
+    }
+
+    private Path file(String clientRegistrationId, String principalName) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((clientRegistrationId + ":" + principalName).getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + SUFFIX);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static boolean isUnexpired(OAuth2AccessToken token) {
+        return token.getExpiresAt() == null || token.getExpiresAt().isAfter(Instant.now());
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Unable to delete token file [{}]: {}", file.getFileName(), e.getMessage());
+        }
+    }
+
+    private static class DecodedToken {
+        private final String registrationId;
+        private final String principalName;
+        private final OAuth2AccessToken accessToken;
+
+        DecodedToken(String registrationId, String principalName, OAuth2AccessToken accessToken) {
+            this.registrationId = registrationId;
+            this.principalName = principalName;
+            this.accessToken = accessToken;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class HedgingFilter implements ExchangeFilterFunction {
+
+    private static final int WINDOW_SIZE = 1000;
+    private static final int MIN_SAMPLES = 100;
+    private static final int RECALCULATE_EVERY = 50;
+    private static final long TOKEN = 1000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long tokensPerRequest;
+    private final AtomicLong budget = new AtomicLong();
+    private final long[] window = new long[WINDOW_SIZE];
+    private int samples;
+    private volatile long delayNanos = -1;
+    private final Counter sent;
+    private final Counter won;
+
+    public HedgingFilter(String backend, double percentile, Duration minDelay, double budgetRatio,
+                         MeterRegistry meterRegistry) {
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.tokensPerRequest = (long) (budgetRatio * TOKEN);
+        this.sent = Counter.builder("http.client.hedge.sent")
+                .tag("backend", backend)
+                .register(meterRegistry);
+        this.won = Counter.builder("http.client.hedge.won")
+                .tag("backend", backend)
+                .register(meterRegistry);
+        Gauge.builder("http.client.hedge.delay", this, filter -> filter.delayNanos / 1_000_000.0)
+                .tag("backend", backend)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (request.method() != HttpMethod.GET) {
+            return next.exchange(request);
+        }
+        return Mono.defer(() -> {
+            earnBudget();
+            long start = System.nanoTime();
+            long delay = delayNanos;
+            if (delay < 0) {
+                return recordLatency(next.exchange(request), start);
+            }
+            AtomicBoolean settled = new AtomicBoolean();
+            Mono<ClientResponse> primary = recordLatency(settle(next.exchange(request), settled), start);
+            Mono<ClientResponse> hedge = Mono.delay(Duration.ofNanos(delay))
+                    .filter(tick -> tryConsumeBudget())
+                    .flatMap(tick -> {
+                        sent.increment();
+                        return settle(next.exchange(request), settled);
+                    })
+                    .doOnNext(response -> won.increment())
+                    .switchIfEmpty(Mono.never());
+            return Mono.firstWithSignal(primary, hedge)
+                    .doOnDiscard(ClientResponse.class, HedgingFilter::release);
+        });
+    }
+
+    // Only the attempt that settles the race signals. Mono.firstWithSignal drops a value that arrives
+    // after the race is decided, so a losing response is released here instead of holding its pooled
+    // connection until the server closes it; one cancelled mid-emission reaches the discard hook.
+    private static Mono<ClientResponse> settle(Mono<ClientResponse> attempt, AtomicBoolean settled) {
+        return attempt
+                .flatMap(response -> {
+                    if (settled.compareAndSet(false, true)) {
+                        return Mono.just(response);
+                    }
+                    release(response);
+                    return Mono.<ClientResponse>never();
+                })
+                .onErrorResume(error -> {
+                    if (settled.compareAndSet(false, true)) {
+                        return Mono.error(error);
+                    }
+                    return Mono.never();
+                });
+    }
+
+    // A primary cancelled by a winning hedge is recorded at its elapsed time so slow attempts
+    // still pull the percentile up instead of vanishing from the window.
+    private Mono<ClientResponse> recordLatency(Mono<ClientResponse> primary, long start) {
+        return primary
+                .doOnNext(response -> record(System.nanoTime() - start))
+                .doOnCancel(() -> record(System.nanoTime() - start));
+    }
+
+    private static void release(ClientResponse response) {
+        response.releaseBody().subscribe();
+    }
+
+    private void earnBudget() {
+        budget.getAndUpdate(tokens -> Math.min(MAX_TOKENS, tokens + tokensPerRequest));
+    }
+
+    private boolean tryConsumeBudget() {
+        while (true) {
+            long tokens = budget.get();
+            if (tokens < TOKEN) {
+                return false;
+            }
+            if (budget.compareAndSet(tokens, tokens - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized void record(long latencyNanos) {
+        window[samples % WINDOW_SIZE] = latencyNanos;
+        samples++;
+        if (samples >= MIN_SAMPLES && samples % RECALCULATE_EVERY == 0) {
+            long[] sorted = Arrays.copyOf(window, Math.min(samples, WINDOW_SIZE));
+            Arrays.sort(sorted);
+            long percentileNanos = sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+            delayNanos = Math.max(minDelayNanos, percentileNanos);
+        }
+    }
+}
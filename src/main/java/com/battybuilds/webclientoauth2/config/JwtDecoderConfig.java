@@ -0,0 +1,56 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+@Configuration
+public class JwtDecoderConfig {
+
+    private static final String JWKS_BACKEND = "jwks";
+
+    private final String jwkSetUri;
+    private final Duration refreshInterval;
+    private final Duration fetchTimeout;
+    private final Duration minRefetchInterval;
+    private final BackendConnectorFactory connectorFactory;
+
+    public JwtDecoderConfig(@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+                            @Value("${jwk-set-refresh-interval}") Duration refreshInterval,
+                            @Value("${jwk-set-fetch-timeout}") Duration fetchTimeout,
+                            @Value("${jwk-set-min-refetch-interval}") Duration minRefetchInterval,
+                            BackendConnectorFactory connectorFactory) {
+        this.jwkSetUri = jwkSetUri;
+        this.refreshInterval = refreshInterval;
+        this.fetchTimeout = fetchTimeout;
+        this.minRefetchInterval = minRefetchInterval;
+        this.connectorFactory = connectorFactory;
+    }
+
+    @Bean
+    RefreshingJwkSource jwkSource() {
+        WebClient webClient = WebClient.builder()
+                .clientConnector(connectorFactory.connectorFor(JWKS_BACKEND))
+                .build();
+        return new RefreshingJwkSource(webClient, jwkSetUri, refreshInterval, fetchTimeout, minRefetchInterval);
+    }
+
+    @Bean
+    JwtDecoder jwtDecoderByIssuerUri(RefreshingJwkSource jwkSource) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+        // Claims are validated by Spring's JwtTimestampValidator, as in the auto-configured decoder
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        return new NimbusJwtDecoder(jwtProcessor);
+    }
+}
@@ -0,0 +1,46 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientService;
+import reactor.core.publisher.Mono;
+
+public class MeteredAuthorizedClientService implements ReactiveOAuth2AuthorizedClientService {
+
+    private final ReactiveOAuth2AuthorizedClientService delegate;
+    private final Counter hits;
+    private final Counter misses;
+
+    public MeteredAuthorizedClientService(ReactiveOAuth2AuthorizedClientService delegate, MeterRegistry meterRegistry,
+                                          String clientRegistrationId) {
+        this.delegate = delegate;
+        this.hits = counter(meterRegistry, clientRegistrationId, "hit");
+        this.misses = counter(meterRegistry, clientRegistrationId, "miss");
+    }
+
+    @Override
+    public <T extends OAuth2AuthorizedClient> Mono<T> loadAuthorizedClient(String clientRegistrationId, String principalName) {
+        return delegate.<T>loadAuthorizedClient(clientRegistrationId, principalName)
+                .doOnNext(authorizedClient -> hits.increment())
+                .switchIfEmpty(Mono.fromRunnable(misses::increment));
+    }
+
+    @Override
+    public Mono<Void> saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+        return delegate.saveAuthorizedClient(authorizedClient, principal);
+    }
+
+    @Override
+    public Mono<Void> removeAuthorizedClient(String clientRegistrationId, String principalName) {
+        return delegate.removeAuthorizedClient(clientRegistrationId, principalName);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String clientRegistrationId, String result) {
+        return Counter.builder("oauth2.authorized.client.cache")
+                .tag("registration", clientRegistrationId)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -1,26 +1,30 @@
 package com.battybuilds.webclientoauth2.config;
 
-import io.netty.channel.ChannelOption;
-import io.netty.handler.timeout.ReadTimeoutHandler;
-import io.netty.handler.timeout.WriteTimeoutHandler;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.reactive.ClientHttpConnector;
-import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.security.oauth2.client.AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager;
 import org.springframework.security.oauth2.client.ClientCredentialsReactiveOAuth2AuthorizedClientProvider;
-import org.springframework.security.oauth2.client.InMemoryReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.endpoint.WebClientReactiveClientCredentialsTokenResponseClient;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.client.registration.InMemoryReactiveClientRegistrationRepository;
 import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
 import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
-import reactor.netty.http.client.HttpClient;
-import reactor.netty.transport.ProxyProvider;
+
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 @Configuration
 public class OAuth2WebClientConfig {
@@ -28,42 +32,69 @@ public class OAuth2WebClientConfig {
     private final String azureTokenUrl;
     private static final String XYZ_REGISTRATION_ID = "xyz";
     private static final String ABC_REGISTRATION_ID = "abc";
+    private static final String TOKEN_BACKEND = "token";
+    private static final Duration TOKEN_CLOCK_SKEW = Duration.ofSeconds(60);
     private final String azureClientId;
     private final String azureClientSecret;
     private final String abcBaseUrl;
-    private final String springProfile;
     private final String xyzResource;
     private final int xyzWebClientMaxMemorySize;
     private final int abcWebClientMaxMemorySize;
     private final String xyzBaseUrl;
     private final String abcResource;
+    private final double tokenRefreshRatio;
+    private final Duration tokenTimeout;
+    private final Duration tokenGraceWindow;
+    private final long authorizedClientCacheMaxSize;
+    private final String tokenStorePath;
+    private final String tokenStoreKey;
+    private final BackendConnectorFactory connectorFactory;
+    private final BackendFilterFactory filterFactory;
+    private final MeterRegistry meterRegistry;
 
     public OAuth2WebClientConfig(@Value("${xyz-resource}") String xyzResource,
                                  @Value("${azure-client-id}") String azureClientId,
                                  @Value("${azure-client-secret}") String azureClientSecret,
                                  @Value("${abc-base-url}") String abcBaseUrl,
                                  @Value("${xyz-base-url}") String xyzBaseUrl,
-                                 @Value("${spring.profiles.active}") String profile,
                                  @Value("${xyz-webClient-max-in-memory-size}") int xyzWebClientMaxMemorySize,
                                  @Value("${abc-webClient-max-in-memory-size}") int abcWebClientMaxMemorySize,
                                  @Value("${abc-resource}") String abcResource,
-                                 @Value("${azure-token-url}") String azureTokenUrl) {
+                                 @Value("${azure-token-url}") String azureTokenUrl,
+                                 @Value("${azure-token-refresh-ratio}") double tokenRefreshRatio,
+                                 @Value("${azure-token-timeout}") Duration tokenTimeout,
+                                 @Value("${azure-token-grace-window}") Duration tokenGraceWindow,
+                                 @Value("${authorized-client-cache-max-size}") long authorizedClientCacheMaxSize,
+                                 @Value("${token-store-path}") String tokenStorePath,
+                                 @Value("${token-store-key}") String tokenStoreKey,
+                                 BackendConnectorFactory connectorFactory,
+                                 BackendFilterFactory filterFactory,
+                                 MeterRegistry meterRegistry) {
         this.xyzResource = xyzResource;
         this.xyzBaseUrl = xyzBaseUrl;
         this.abcResource = abcResource;
         this.azureClientId = azureClientId;
         this.azureClientSecret = azureClientSecret;
         this.abcBaseUrl = abcBaseUrl;
-        springProfile = profile;
         this.xyzWebClientMaxMemorySize = xyzWebClientMaxMemorySize;
         this.abcWebClientMaxMemorySize = abcWebClientMaxMemorySize;
         this.azureTokenUrl = azureTokenUrl;
+        this.tokenRefreshRatio = tokenRefreshRatio;
+        this.tokenTimeout = tokenTimeout;
+        this.tokenGraceWindow = tokenGraceWindow;
+        this.authorizedClientCacheMaxSize = authorizedClientCacheMaxSize;
+        this.tokenStorePath = tokenStorePath;
+        this.tokenStoreKey = tokenStoreKey;
+        this.connectorFactory = connectorFactory;
+        this.filterFactory = filterFactory;
+        this.meterRegistry = meterRegistry;
     }
 
     @Bean(name = "abcWebClient")
     WebClient abcWebClient(ReactiveClientRegistrationRepository clientRegistrations) {
         AzureTokenResponseClient azureTokenResponseClient =
-                new AzureTokenResponseClient(abcResource, connectorForProxyAndTimeout());
+                new AzureTokenResponseClient(abcResource, connectorFactory.connectorFor(TOKEN_BACKEND), meterRegistry,
+                        tokenTimeout, tokenRefreshRatio);
 
         ExchangeStrategies exchangeStrategies = ExchangeStrategies.builder()
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(abcWebClientMaxMemorySize)).build();
@@ -71,15 +102,18 @@ public class OAuth2WebClientConfig {
         return WebClient.builder()
                 .exchangeStrategies(exchangeStrategies)
                 .baseUrl(abcBaseUrl)
-                .clientConnector(connectorForProxyAndTimeout())
+                .clientConnector(connectorFactory.connectorFor(ABC_REGISTRATION_ID))
+                .filters(filters -> filters.addAll(filterFactory.beforeAuthorization(ABC_REGISTRATION_ID, exchangeStrategies)))
                 .filter(setUpOAuth2(clientRegistrations, azureTokenResponseClient, ABC_REGISTRATION_ID))
+                .filters(filters -> filters.addAll(filterFactory.afterAuthorization(ABC_REGISTRATION_ID)))
                 .build();
     }
 
     @Bean(name = "xyzWebClient")
     WebClient xyzWebClient(ReactiveClientRegistrationRepository clientRegistrations) {
         AzureTokenResponseClient azureTokenResponseClient =
-                new AzureTokenResponseClient(xyzResource, connectorForProxyAndTimeout());
+                new AzureTokenResponseClient(xyzResource, connectorFactory.connectorFor(TOKEN_BACKEND), meterRegistry,
+                        tokenTimeout, tokenRefreshRatio);
 
         ExchangeStrategies exchangeStrategies = ExchangeStrategies.builder()
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(xyzWebClientMaxMemorySize)).build();
@@ -87,8 +121,10 @@ public class OAuth2WebClientConfig {
         return WebClient.builder()
                 .exchangeStrategies(exchangeStrategies)
                 .baseUrl(xyzBaseUrl)
-                .clientConnector(connectorForProxyAndTimeout())
+                .clientConnector(connectorFactory.connectorFor(XYZ_REGISTRATION_ID))
+                .filters(filters -> filters.addAll(filterFactory.beforeAuthorization(XYZ_REGISTRATION_ID, exchangeStrategies)))
                 .filter(setUpOAuth2(clientRegistrations, azureTokenResponseClient, XYZ_REGISTRATION_ID))
+                .filters(filters -> filters.addAll(filterFactory.afterAuthorization(XYZ_REGISTRATION_ID)))
                 .build();
     }
 
@@ -117,20 +153,41 @@ public class OAuth2WebClientConfig {
                 .build();
     }
 
-    private ServerOAuth2AuthorizedClientExchangeFilterFunction setUpOAuth2(ReactiveClientRegistrationRepository clientRegistrations,
-                                                                           WebClientReactiveClientCredentialsTokenResponseClient tokenResponseClient,
-                                                                           String clientRegistrationId) {
-        InMemoryReactiveOAuth2AuthorizedClientService clientService =
-                new InMemoryReactiveOAuth2AuthorizedClientService(clientRegistrations);
+    private ExchangeFilterFunction setUpOAuth2(ReactiveClientRegistrationRepository clientRegistrations,
+                                               AzureTokenResponseClient tokenResponseClient,
+                                               String clientRegistrationId) {
+        List<Consumer<OAuth2AuthorizedClient>> evictionListeners = new CopyOnWriteArrayList<>();
+        ReactiveOAuth2AuthorizedClientService cache = new BoundedAuthorizedClientService(authorizedClientCacheMaxSize,
+                meterRegistry, clientRegistrationId, evicted -> evictionListeners.forEach(listener -> listener.accept(evicted)));
+        FileBackedAuthorizedClientService tokenStore = null;
+        if (StringUtils.hasText(tokenStorePath)) {
+            tokenStore = new FileBackedAuthorizedClientService(cache, clientRegistrations,
+                    Paths.get(tokenStorePath, clientRegistrationId), tokenStoreKey);
+            cache = tokenStore;
+        }
+        RefreshAheadAuthorizedClientService refreshAhead =
+                new RefreshAheadAuthorizedClientService(cache, tokenResponseClient, tokenRefreshRatio);
+        evictionListeners.add(refreshAhead::onEvicted);
+        ReactiveOAuth2AuthorizedClientService clientService =
+                new MeteredAuthorizedClientService(refreshAhead, meterRegistry, clientRegistrationId);
+        if (tokenStore != null) {
+            evictionListeners.add(tokenStore::onEvicted);
+            // Restored in the background: until a tenant's file is read it simply fetches a token as on a cold start.
+            tokenStore.restoreInto(clientService).subscribe();
+        }
 
         AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager clientManager =
                 new AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager(clientRegistrations, clientService);
-        clientManager.setAuthorizedClientProvider(constructProvider(tokenResponseClient));
+        clientManager.setAuthorizedClientProvider(new StaleWhileRevalidateAuthorizedClientProvider(
+                constructProvider(tokenResponseClient), clientService, TOKEN_CLOCK_SKEW, tokenGraceWindow, Clock.systemUTC()));
         ServerOAuth2AuthorizedClientExchangeFilterFunction oauth =
-                new ServerOAuth2AuthorizedClientExchangeFilterFunction(clientManager);
+                new ServerOAuth2AuthorizedClientExchangeFilterFunction(new CoalescingAuthorizedClientManager(clientManager));
 
         oauth.setDefaultClientRegistrationId(clientRegistrationId);
-        return oauth;
+        return new UnauthorizedRetryFilter()
+                .andThen(oauth)
+                .andThen(new RejectedTokenEvictionFilter(clientService, clientRegistrationId, meterRegistry,
+                        tokenResponseClient::forget));
     }
 
     private ClientCredentialsReactiveOAuth2AuthorizedClientProvider constructProvider(
@@ -139,22 +196,7 @@ public class OAuth2WebClientConfig {
                 new ClientCredentialsReactiveOAuth2AuthorizedClientProvider();
 
         provider.setAccessTokenResponseClient(tokenResponseClient);
+        provider.setClockSkew(TOKEN_CLOCK_SKEW);
         return provider;
     }
-
-    private ClientHttpConnector connectorForProxyAndTimeout() {
-        HttpClient httpClient = HttpClient.create()
-                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 60000)
-                .doOnConnected(connection -> connection
-                        .addHandlerLast(new ReadTimeoutHandler(60))
-                        .addHandlerLast(new WriteTimeoutHandler(60)));
-
-        if ("proxy".equals(springProfile)) {
-            httpClient.proxy(proxy -> proxy.type(ProxyProvider.Proxy.HTTP)
-                    .host("internet.myproxy.com")
-                    .port(83));
-        }
-
-        return new ReactorClientHttpConnector(httpClient.wiretap(true));
-    }
 }
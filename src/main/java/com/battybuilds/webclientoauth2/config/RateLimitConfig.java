@@ -0,0 +1,47 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "rate-limit-enabled", havingValue = "true")
+public class RateLimitConfig {
+
+    // The WokeController and SecureAbcController endpoints; each gets its own limit under
+    // <endpoint>-rate-limit-per-second and <endpoint>-rate-limit-burst, e.g. v2-alarms-rate-limit-burst.
+    private static final List<String> RATE_LIMITED_PATHS = List.of("/v1/alarms", "/v1/alarm", "/v1/alarms/batch", "/v2/alarms");
+
+    // Runs after Spring Security so only authenticated callers spend a tenant's tokens.
+    @Bean
+    FilterRegistrationBean<RateLimitFilter> rateLimitFilter(Environment environment,
+                                                            ObjectMapper objectMapper,
+                                                            MeterRegistry meterRegistry,
+                                                            @Value("${rate-limit-max-keys}") long maxKeys,
+                                                            @Value("${rate-limit-idle-expiry}") Duration idleExpiry) {
+        Map<String, TokenBucketRateLimiter.Limit> limitsByPath = new HashMap<>();
+        for (String path : RATE_LIMITED_PATHS) {
+            BackendProperties properties = new BackendProperties(environment, path.substring(1).replace('/', '-'));
+            limitsByPath.put(path, new TokenBucketRateLimiter.Limit(
+                    properties.getDouble("rate-limit-per-second"), properties.getInt("rate-limit-burst")));
+        }
+        RateLimitFilter filter = new RateLimitFilter(new TokenBucketRateLimiter(maxKeys, idleExpiry, meterRegistry),
+                limitsByPath, objectMapper, meterRegistry);
+
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setUrlPatterns(RATE_LIMITED_PATHS);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,81 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.battybuilds.webclientoauth2.WokeResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String TENANT_HEADER = "Identification-No";
+
+    private final TokenBucketRateLimiter limiter;
+    private final Map<String, TokenBucketRateLimiter.Limit> limitsByPath;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(TokenBucketRateLimiter limiter, Map<String, TokenBucketRateLimiter.Limit> limitsByPath,
+                           ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.limitsByPath = limitsByPath;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !limitsByPath.containsKey(pathOf(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String tenant = request.getHeader(TENANT_HEADER);
+        if (tenant == null) {
+            // The controllers reject requests without the header; there is no caller to charge.
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String path = pathOf(request);
+        Duration retryAfter = limiter.tryAcquire(path + ":" + tenant, limitsByPath.get(path));
+        if (retryAfter.isZero()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        reject(response, path, retryAfter);
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private void reject(HttpServletResponse response, String path, Duration retryAfter) throws IOException {
+        log.debug("Rate limited request to [{}], retry after {}", path, retryAfter);
+        Counter.builder("http.server.requests.rate.limited")
+                .tag("uri", path)
+                .register(meterRegistry)
+                .increment();
+
+        long retryAfterSeconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), WokeResponse.builder()
+                .error("Too many requests for " + TENANT_HEADER + ", context: RATE_LIMITED")
+                .build());
+    }
+}
@@ -0,0 +1,141 @@
+package com.battybuilds.webclientoauth2.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.endpoint.OAuth2ClientCredentialsGrantRequest;
+import org.springframework.security.oauth2.client.endpoint.ReactiveOAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+public class RefreshAheadAuthorizedClientService implements ReactiveOAuth2AuthorizedClientService {
+
+    private final ReactiveOAuth2AuthorizedClientService delegate;
+    private final ReactiveOAuth2AccessTokenResponseClient<OAuth2ClientCredentialsGrantRequest> tokenResponseClient;
+    private final double refreshRatio;
+    private final Map<String, ScheduledRefresh> scheduledRefreshes = new ConcurrentHashMap<>();
+
+    public RefreshAheadAuthorizedClientService(ReactiveOAuth2AuthorizedClientService delegate,
+                                               ReactiveOAuth2AccessTokenResponseClient<OAuth2ClientCredentialsGrantRequest> tokenResponseClient,
+                                               double refreshRatio) {
+        this.delegate = delegate;
+        this.tokenResponseClient = tokenResponseClient;
+        this.refreshRatio = refreshRatio;
+    }
+
+    @Override
+    public <T extends OAuth2AuthorizedClient> Mono<T> loadAuthorizedClient(String clientRegistrationId, String principalName) {
+        ScheduledRefresh scheduled = scheduledRefreshes.get(key(clientRegistrationId, principalName));
+        if (scheduled != null) {
+            scheduled.read = true;
+        }
+        return delegate.loadAuthorizedClient(clientRegistrationId, principalName);
+    }
+
+    @Override
+    public Mono<Void> saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+        return delegate.saveAuthorizedClient(authorizedClient, principal)
+                .doOnSuccess(ignored -> scheduleRefresh(authorizedClient, principal));
+    }
+
+    @Override
+    public Mono<Void> removeAuthorizedClient(String clientRegistrationId, String principalName) {
+        cancelRefresh(key(clientRegistrationId, principalName));
+        return delegate.removeAuthorizedClient(clientRegistrationId, principalName);
+    }
+
+    // Wired to the cache's eviction listener so size-evicted tenants do not keep a pending refresh.
+    public void onEvicted(OAuth2AuthorizedClient evicted) {
+        cancelRefresh(key(evicted.getClientRegistration().getRegistrationId(), evicted.getPrincipalName()));
+    }
+
+    private void scheduleRefresh(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+        if (refreshRatio <= 0) {
+            return;
+        }
+        OAuth2AccessToken token = authorizedClient.getAccessToken();
+        if (token.getIssuedAt() == null || token.getExpiresAt() == null) {
+            return;
+        }
+        Duration lifetime = Duration.between(token.getIssuedAt(), token.getExpiresAt());
+        Instant refreshAt = token.getIssuedAt().plusMillis((long) (lifetime.toMillis() * refreshRatio));
+        Duration delay = Duration.between(Instant.now(), refreshAt);
+        if (delay.isNegative() || delay.isZero()) {
+            return;
+        }
+
+        ClientRegistration registration = authorizedClient.getClientRegistration();
+        String key = key(registration.getRegistrationId(), authorizedClient.getPrincipalName());
+        ScheduledRefresh scheduled = new ScheduledRefresh();
+        ScheduledRefresh previous = scheduledRefreshes.put(key, scheduled);
+        if (previous != null) {
+            previous.cancel();
+        }
+        scheduled.task = Mono.delay(delay)
+                .flatMap(tick -> refreshIfRead(key, scheduled, registration, principal))
+                .subscribe(null, error -> log.warn("Background token refresh failed for registration [{}]: {}",
+                        registration.getRegistrationId(), error.getMessage()));
+    }
+
+    // Only clients read since the last refresh are refreshed. An idle tenant's token is left to expire
+    // so the cache can drop it, rather than being renewed forever with one Azure call per lifetime.
+    private Mono<Void> refreshIfRead(String key, ScheduledRefresh scheduled, ClientRegistration registration,
+                                     Authentication principal) {
+        return delegate.loadAuthorizedClient(registration.getRegistrationId(), principal.getName())
+                .hasElement()
+                .flatMap(cached -> {
+                    if (cached && scheduled.read && scheduledRefreshes.get(key) == scheduled) {
+                        return refresh(registration, principal);
+                    }
+                    log.debug("Skipping refresh of idle or evicted client for registration [{}]",
+                            registration.getRegistrationId());
+                    scheduledRefreshes.remove(key, scheduled);
+                    return Mono.empty();
+                });
+    }
+
+    private void cancelRefresh(String key) {
+        ScheduledRefresh scheduled = scheduledRefreshes.remove(key);
+        if (scheduled != null) {
+            scheduled.cancel();
+        }
+    }
+
+    int scheduledRefreshCount() {
+        return scheduledRefreshes.size();
+    }
+
+    private Mono<Void> refresh(ClientRegistration registration, Authentication principal) {
+        log.debug("Refreshing token ahead of expiry for registration [{}]", registration.getRegistrationId());
+        return tokenResponseClient.getTokenResponse(new OAuth2ClientCredentialsGrantRequest(registration))
+                .retryWhen(Retry.backoff(2, Duration.ofSeconds(1)))
+                .map(response -> new OAuth2AuthorizedClient(registration, principal.getName(), response.getAccessToken()))
+                .flatMap(refreshed -> saveAuthorizedClient(refreshed, principal));
+    }
+
+    private static String key(String clientRegistrationId, String principalName) {
+        return clientRegistrationId + ":" + principalName;
+    }
+
+    private static class ScheduledRefresh {
+        private volatile Disposable task;
+        private volatile boolean read;
+
+        void cancel() {
+            Disposable scheduledTask = task;
+            if (scheduledTask != null) {
+                scheduledTask.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+public class RefreshingJwkSource implements JWKSource<SecurityContext>, InitializingBean, DisposableBean {
+
+    private final WebClient webClient;
+    private final String jwkSetUri;
+    private final Duration refreshInterval;
+    private final Duration fetchTimeout;
+    private final Duration minRefetchInterval;
+    private final AtomicReference<JWKSet> jwkSet = new AtomicReference<>(new JWKSet());
+    private final SingleFlight<String, JWKSet> fetches = new SingleFlight<>();
+    private Mono<JWKSet> unknownKeyRefetch;
+    private long unknownKeyRefetchStartedAt;
+    private Disposable scheduledRefresh;
+
+    public RefreshingJwkSource(WebClient webClient, String jwkSetUri, Duration refreshInterval,
+                               Duration fetchTimeout, Duration minRefetchInterval) {
+        this.webClient = webClient;
+        this.jwkSetUri = jwkSetUri;
+        this.refreshInterval = refreshInterval;
+        this.fetchTimeout = fetchTimeout;
+        this.minRefetchInterval = minRefetchInterval;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduledRefresh = Flux.interval(Duration.ZERO, refreshInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> fetch()
+                        .onErrorResume(error -> {
+                            log.warn("Unable to refresh JWK set from [{}], keeping last good keys: {}", jwkSetUri, error.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+        List<JWK> keys = jwkSelector.select(jwkSet.get());
+        if (!keys.isEmpty()) {
+            return keys;
+        }
+        JWKSet refreshed = refetchForUnknownKey()
+                .onErrorResume(error -> Mono.empty())
+                .block();
+        return refreshed == null ? Collections.emptyList() : jwkSelector.select(refreshed);
+    }
+
+    // Every caller that misses during a rotation joins the same refetch and sees its keys, rather than
+    // only the first one getting them. Within minRefetchInterval the cached outcome is replayed, so a
+    // stream of tokens with a bogus kid costs one fetch per interval.
+    private synchronized Mono<JWKSet> refetchForUnknownKey() {
+        long now = System.nanoTime();
+        if (unknownKeyRefetch == null || now - unknownKeyRefetchStartedAt >= minRefetchInterval.toNanos()) {
+            log.info("No matching key in the JWK set, refetching from [{}]", jwkSetUri);
+            unknownKeyRefetchStartedAt = now;
+            unknownKeyRefetch = fetch()
+                    .doOnError(error -> log.warn("Unable to refetch JWK set from [{}]: {}", jwkSetUri, error.getMessage()))
+                    .cache();
+        }
+        return unknownKeyRefetch;
+    }
+
+    private Mono<JWKSet> fetch() {
+        return fetches.execute(jwkSetUri, () -> webClient.get()
+                .uri(jwkSetUri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(fetchTimeout)
+                .flatMap(body -> Mono.fromCallable(() -> JWKSet.parse(body)))
+                .doOnNext(jwkSet::set));
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.dispose();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientService;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Consumer;
+
+@Slf4j
+public class RejectedTokenEvictionFilter implements ExchangeFilterFunction {
+
+    private static final String ANONYMOUS_PRINCIPAL = "anonymousUser";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final ReactiveOAuth2AuthorizedClientService clientService;
+    private final String clientRegistrationId;
+    private final Counter evictions;
+    private final Consumer<String> onRejected;
+
+    public RejectedTokenEvictionFilter(ReactiveOAuth2AuthorizedClientService clientService, String clientRegistrationId,
+                                       MeterRegistry meterRegistry) {
+        this(clientService, clientRegistrationId, meterRegistry, rejectedToken -> {
+        });
+    }
+
+    public RejectedTokenEvictionFilter(ReactiveOAuth2AuthorizedClientService clientService, String clientRegistrationId,
+                                       MeterRegistry meterRegistry, Consumer<String> onRejected) {
+        this.clientService = clientService;
+        this.onRejected = onRejected;
+        this.clientRegistrationId = clientRegistrationId;
+        this.evictions = Counter.builder("oauth2.authorized.client.evictions")
+                .tag("registration", clientRegistrationId)
+                .register(meterRegistry);
+    }
+
+    static boolean isTokenRejected(ClientResponse response) {
+        if (response.statusCode() == HttpStatus.UNAUTHORIZED) {
+            return true;
+        }
+        return response.headers().header(HttpHeaders.WWW_AUTHENTICATE).stream()
+                .anyMatch(challenge -> challenge.contains("invalid_token"));
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return next.exchange(request)
+                .flatMap(response -> {
+                    String rejectedToken = bearerToken(request);
+                    if (rejectedToken == null || !isTokenRejected(response)) {
+                        return Mono.just(response);
+                    }
+                    onRejected.accept(rejectedToken);
+                    return evictIfCurrent(rejectedToken).thenReturn(response);
+                });
+    }
+
+    // Only the client holding the rejected token is evicted, so late 401s for an old token
+    // cannot throw away the token that was re-acquired in the meantime.
+    private Mono<Void> evictIfCurrent(String rejectedToken) {
+        return principalName()
+                .flatMap(principalName -> clientService.<OAuth2AuthorizedClient>loadAuthorizedClient(clientRegistrationId, principalName)
+                        .filter(current -> rejectedToken.equals(current.getAccessToken().getTokenValue()))
+                        .flatMap(current -> {
+                            log.warn("Backend rejected the token for registration [{}], evicting it", clientRegistrationId);
+                            evictions.increment();
+                            return clientService.removeAuthorizedClient(clientRegistrationId, principalName);
+                        }));
+    }
+
+    private Mono<String> principalName() {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .defaultIfEmpty(ANONYMOUS_PRINCIPAL);
+    }
+
+    private static String bearerToken(ClientRequest request) {
+        String authorization = request.headers().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        return authorization.substring(BEARER_PREFIX.length());
+    }
+}
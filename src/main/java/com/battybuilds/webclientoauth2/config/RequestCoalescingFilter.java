@@ -0,0 +1,39 @@
+package com.battybuilds.webclientoauth2.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Mono;
+
+public class RequestCoalescingFilter implements ExchangeFilterFunction {
+
+    private static final String IDENTIFICATION_ID = "Identification-Id";
+
+    private final SingleFlight<String, BufferedResponse> exchanges = new SingleFlight<>();
+    private final ExchangeStrategies strategies;
+
+    public RequestCoalescingFilter(ExchangeStrategies strategies) {
+        this.strategies = strategies;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!HttpMethod.GET.equals(request.method()) || StreamingReads.isStreaming(request)) {
+            return next.exchange(request);
+        }
+        HttpHeaders headers = request.headers();
+        String key = request.url() + "|" + headers.getFirst(IDENTIFICATION_ID) + "|" + headers.getFirst(HttpHeaders.ACCEPT);
+        // The shared exchange must not inherit the first caller's deadline; each caller waits only as long
+        // as its own budget allows, and the exchange carries on for the others.
+        return exchanges.execute(key, () -> next.exchange(request)
+                        .flatMap(BufferedResponse::from)
+                        .contextWrite(Deadline::cleared))
+                .transform(Deadline.remainingBudget())
+                .map(buffered -> buffered.toClientResponse(strategies));
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+public class ResponseCacheFilter implements ExchangeFilterFunction {
+
+    private static final String IDENTIFICATION_ID = "Identification-Id";
+
+    private final Cache<CacheKey, CachedResponse> cache;
+    // Bumped per resource on every invalidation, so a GET that was already in flight when a write
+    // landed can tell its response may predate the write and must not be cached.
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+    private final Duration timeToLive;
+    private final ExchangeStrategies strategies;
+
+    public ResponseCacheFilter(long maxSize, Duration timeToLive, Duration maxAge, ExchangeStrategies strategies) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(maxAge)
+                .build();
+        this.timeToLive = timeToLive;
+        this.strategies = strategies;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!HttpMethod.GET.equals(request.method())) {
+            return next.exchange(request)
+                    .doOnNext(response -> {
+                        if (response.statusCode().is2xxSuccessful()) {
+                            invalidate(request.url());
+                        }
+                    });
+        }
+
+        if (StreamingReads.isStreaming(request)) {
+            return next.exchange(request);
+        }
+
+        CacheKey key = new CacheKey(request.url(), request.headers().getFirst(IDENTIFICATION_ID),
+                request.headers().getFirst(HttpHeaders.ACCEPT));
+        long generation = generation(request.url());
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached == null) {
+            return next.exchange(request).flatMap(response -> store(key, generation, response));
+        }
+        if (cached.isFresh(timeToLive)) {
+            log.debug("Serving [{}] from the response cache", request.url());
+            return Mono.just(cached.getResponse().toClientResponse(strategies));
+        }
+        return revalidate(key, generation, cached, request, next);
+    }
+
+    private Mono<ClientResponse> revalidate(CacheKey key, long generation, CachedResponse cached,
+                                            ClientRequest request, ExchangeFunction next) {
+        HttpHeaders cachedHeaders = cached.getResponse().getHeaders();
+        if (cachedHeaders.getETag() == null && cachedHeaders.getLastModified() == -1) {
+            return next.exchange(request).flatMap(response -> store(key, generation, response));
+        }
+
+        ClientRequest conditionalRequest = ClientRequest.from(request)
+                .headers(headers -> {
+                    if (cachedHeaders.getETag() != null) {
+                        headers.setIfNoneMatch(cachedHeaders.getETag());
+                    }
+                    if (cachedHeaders.getLastModified() != -1) {
+                        headers.setIfModifiedSince(cachedHeaders.getLastModified());
+                    }
+                })
+                .build();
+
+        return next.exchange(conditionalRequest).flatMap(response -> {
+            if (response.rawStatusCode() == HttpStatus.NOT_MODIFIED.value()) {
+                log.debug("Revalidated [{}] with a 304 from the backend", request.url());
+                return response.releaseBody().then(Mono.fromSupplier(() -> {
+                    put(key, generation, new CachedResponse(cached.getResponse(), Instant.now()));
+                    return cached.getResponse().toClientResponse(strategies);
+                }));
+            }
+            cache.invalidate(key);
+            return store(key, generation, response);
+        });
+    }
+
+    private Mono<ClientResponse> store(CacheKey key, long generation, ClientResponse response) {
+        if (response.rawStatusCode() != HttpStatus.OK.value()) {
+            return Mono.just(response);
+        }
+        return BufferedResponse.from(response).map(buffered -> {
+            put(key, generation, new CachedResponse(buffered, Instant.now()));
+            return buffered.toClientResponse(strategies);
+        });
+    }
+
+    // Put first and check after: invalidate bumps the generation before it removes entries, so an
+    // entry put during an invalidation is either removed by it or caught here.
+    private void put(CacheKey key, long generation, CachedResponse entry) {
+        cache.put(key, entry);
+        if (generation(key.getUri()) != generation) {
+            log.debug("Not caching [{}], it was written while the read was in flight", key.getUri());
+            cache.asMap().remove(key, entry);
+        }
+    }
+
+    private long generation(URI url) {
+        return generations.getOrDefault(resource(url), 0L);
+    }
+
+    private void invalidate(URI url) {
+        generations.merge(resource(url), 1L, Long::sum);
+        cache.asMap().keySet().removeIf(key -> sameResource(key.getUri(), url));
+    }
+
+    private static String resource(URI url) {
+        return url.getAuthority() + url.getRawPath();
+    }
+
+    private static boolean sameResource(URI cached, URI changed) {
+        return Objects.equals(cached.getAuthority(), changed.getAuthority())
+                && Objects.equals(cached.getRawPath(), changed.getRawPath());
+    }
+
+    @Value
+    private static class CacheKey {
+        URI uri;
+        String identificationId;
+        String accept;
+    }
+
+    @Value
+    private static class CachedResponse {
+        BufferedResponse response;
+        Instant storedAt;
+
+        boolean isFresh(Duration timeToLive) {
+            return storedAt.plus(timeToLive).isAfter(Instant.now());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ResponseSizeFilter implements ExchangeFilterFunction {
+
+    private final DistributionSummary responseSize;
+
+    public ResponseSizeFilter(MeterRegistry meterRegistry, String backend) {
+        this.responseSize = DistributionSummary.builder("http.client.response.size")
+                .baseUnit("bytes")
+                .tag("backend", backend)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return next.exchange(request)
+                .map(response -> response.mutate()
+                        .body(body -> {
+                            AtomicLong bytes = new AtomicLong();
+                            return body.doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+                                    .doOnComplete(() -> responseSize.record(bytes.get()));
+                        })
+                        .build());
+    }
+}
@@ -0,0 +1,78 @@
+package com.battybuilds.webclientoauth2.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizationContext;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientProvider;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+public class StaleWhileRevalidateAuthorizedClientProvider implements ReactiveOAuth2AuthorizedClientProvider {
+
+    private final ReactiveOAuth2AuthorizedClientProvider delegate;
+    private final ReactiveOAuth2AuthorizedClientService clientService;
+    private final Duration clockSkew;
+    private final Duration graceWindow;
+    private final Clock clock;
+    private final Map<String, Boolean> revalidating = new ConcurrentHashMap<>();
+
+    public StaleWhileRevalidateAuthorizedClientProvider(ReactiveOAuth2AuthorizedClientProvider delegate,
+                                                        ReactiveOAuth2AuthorizedClientService clientService,
+                                                        Duration clockSkew, Duration graceWindow, Clock clock) {
+        this.delegate = delegate;
+        this.clientService = clientService;
+        this.clockSkew = clockSkew;
+        this.graceWindow = graceWindow;
+        this.clock = clock;
+    }
+
+    // Inside the grace window the current token is still usable, so callers keep it and a single
+    // background fetch replaces it. Only once the token is within the clock skew of expiry does a
+    // caller wait on the token endpoint.
+    @Override
+    public Mono<OAuth2AuthorizedClient> authorize(OAuth2AuthorizationContext context) {
+        OAuth2AuthorizedClient current = context.getAuthorizedClient();
+        if (current == null || graceWindow.isZero() || current.getAccessToken().getExpiresAt() == null) {
+            return delegate.authorize(context);
+        }
+        Instant usableUntil = current.getAccessToken().getExpiresAt().minus(clockSkew);
+        Instant now = clock.instant();
+        if (!now.isBefore(usableUntil)) {
+            return delegate.authorize(context);
+        }
+        if (!now.isBefore(usableUntil.minus(graceWindow))) {
+            revalidate(current, context.getPrincipal());
+        }
+        return Mono.empty();
+    }
+
+    private void revalidate(OAuth2AuthorizedClient current, Authentication principal) {
+        String key = current.getClientRegistration().getRegistrationId() + ":" + current.getPrincipalName();
+        if (revalidating.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+        OAuth2AuthorizationContext fresh = OAuth2AuthorizationContext
+                .withClientRegistration(current.getClientRegistration())
+                .principal(principal)
+                .build();
+        delegate.authorize(fresh)
+                .filter(refreshed -> isNewer(refreshed.getAccessToken(), current.getAccessToken()))
+                .flatMap(refreshed -> clientService.saveAuthorizedClient(refreshed, principal))
+                .doFinally(signal -> revalidating.remove(key))
+                .subscribe(null, error -> log.warn("Background token revalidation failed for registration [{}]: {}",
+                        current.getClientRegistration().getRegistrationId(), error.getMessage()));
+    }
+
+    private static boolean isNewer(OAuth2AccessToken refreshed, OAuth2AccessToken current) {
+        return refreshed.getExpiresAt() == null || refreshed.getExpiresAt().isAfter(current.getExpiresAt());
+    }
+}
@@ -0,0 +1,24 @@
+package com.battybuilds.webclientoauth2.config;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+
+import java.util.List;
+
+public final class StreamingReads {
+
+    // Set on a read whose body is forwarded as it arrives, e.g. the pass-through reads, which accept plain JSON.
+    public static final String ATTRIBUTE = StreamingReads.class.getName();
+
+    private static final List<MediaType> STREAMING_TYPES = List.of(MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM);
+
+    private StreamingReads() {
+    }
+
+    // Sharing or caching a response means buffering all of it, which would turn an NDJSON or SSE stream,
+    // or a forwarded body, into one late, unbounded body, so those reads go straight through.
+    static boolean isStreaming(ClientRequest request) {
+        return request.attribute(ATTRIBUTE).isPresent() || request.headers().getAccept().stream()
+                .anyMatch(accepted -> STREAMING_TYPES.stream().anyMatch(accepted::equalsTypeAndSubtype));
+    }
+}
@@ -0,0 +1,39 @@
+package com.battybuilds.webclientoauth2.config;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import reactor.util.context.Context;
+
+import java.util.function.Function;
+
+public class TenantAuthentication extends AbstractAuthenticationToken {
+
+    private final String tenant;
+
+    private TenantAuthentication(String tenant) {
+        super(AuthorityUtils.NO_AUTHORITIES);
+        this.tenant = tenant;
+        setAuthenticated(true);
+    }
+
+    // The OAuth2 filter keys authorized clients on the principal in the reactive security context,
+    // so each tenant gets and caches its own backend token.
+    public static Function<Context, Context> withTenant(String tenant) {
+        return ReactiveSecurityContextHolder.withAuthentication(of(tenant));
+    }
+
+    public static TenantAuthentication of(String tenant) {
+        return new TenantAuthentication(tenant);
+    }
+
+    @Override
+    public Object getCredentials() {
+        return "";
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return tenant;
+    }
+}
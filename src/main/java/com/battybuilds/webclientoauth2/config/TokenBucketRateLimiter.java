@@ -0,0 +1,85 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+public class TokenBucketRateLimiter {
+
+    private final Cache<String, Bucket> buckets;
+    private final LongSupplier nanoClock;
+
+    public TokenBucketRateLimiter(long maxKeys, Duration idleExpiry, MeterRegistry meterRegistry) {
+        this(maxKeys, idleExpiry, meterRegistry, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(long maxKeys, Duration idleExpiry, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleExpiry)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rate.limit.buckets");
+    }
+
+    // Returns zero when the request is admitted, otherwise how long until the key has a token again.
+    public Duration tryAcquire(String key, Limit limit) {
+        long now = nanoClock.getAsLong();
+        long waitNanos = buckets.get(key, ignored -> new Bucket(now)).tryAcquire(now, limit);
+        return waitNanos == 0 ? Duration.ZERO : Duration.ofNanos(waitNanos);
+    }
+
+    public static class Limit {
+        private final long intervalNanos;
+        private final long capacityNanos;
+
+        // Checked up front: a rate of 0 would make the interval Long.MAX_VALUE and the capacity overflow.
+        public Limit(double permitsPerSecond, int burst) {
+            if (!(permitsPerSecond > 0) || permitsPerSecond > TimeUnit.SECONDS.toNanos(1)) {
+                throw new IllegalArgumentException("rate-limit-per-second must be greater than 0 and at most 1e9, got "
+                        + permitsPerSecond);
+            }
+            if (burst < 1) {
+                throw new IllegalArgumentException("rate-limit-burst must be at least 1, got " + burst);
+            }
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+            try {
+                this.capacityNanos = Math.multiplyExact(intervalNanos, burst);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("rate-limit-burst of " + burst + " at " + permitsPerSecond
+                        + " per second is too large", e);
+            }
+        }
+    }
+
+    // The bucket is kept as the time at which it would next be full (GCRA), which is a token bucket
+    // whose whole state fits in one AtomicLong and is updated with a CAS instead of a lock.
+    private static class Bucket {
+        private final AtomicLong fullAt;
+
+        Bucket(long now) {
+            this.fullAt = new AtomicLong(now);
+        }
+
+        long tryAcquire(long now, Limit limit) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + limit.intervalNanos;
+                long overdraft = next - now - limit.capacityNanos;
+                if (overdraft > 0) {
+                    return overdraft;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
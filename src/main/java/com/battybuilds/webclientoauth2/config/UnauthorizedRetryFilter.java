@@ -0,0 +1,18 @@
+package com.battybuilds.webclientoauth2.config;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+public class UnauthorizedRetryFilter implements ExchangeFilterFunction {
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return next.exchange(request)
+                .flatMap(response -> RejectedTokenEvictionFilter.isTokenRejected(response)
+                        ? response.releaseBody().then(next.exchange(request))
+                        : Mono.just(response));
+    }
+}
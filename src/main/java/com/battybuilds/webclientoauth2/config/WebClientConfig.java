@@ -3,21 +3,35 @@ package com.battybuilds.webclientoauth2.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 public class WebClientConfig {
 
+    private static final String WOKE_BACKEND = "woke";
     private final String baseUrl;
+    private final BackendConnectorFactory connectorFactory;
+    private final BackendFilterFactory filterFactory;
 
-    public WebClientConfig(@Value("${base-url}") String baseUrl) {
+    public WebClientConfig(@Value("${base-url}") String baseUrl,
+                           BackendConnectorFactory connectorFactory,
+                           BackendFilterFactory filterFactory) {
         this.baseUrl = baseUrl;
+        this.connectorFactory = connectorFactory;
+        this.filterFactory = filterFactory;
     }
 
     @Bean(name = "wokeWebClient")
     WebClient webClient() {
+        ExchangeStrategies exchangeStrategies = ExchangeStrategies.withDefaults();
+
         return WebClient.builder()
+                .exchangeStrategies(exchangeStrategies)
                 .baseUrl(baseUrl)
+                .clientConnector(connectorFactory.connectorFor(WOKE_BACKEND))
+                .filters(filters -> filters.addAll(filterFactory.beforeAuthorization(WOKE_BACKEND, exchangeStrategies)))
+                .filters(filters -> filters.addAll(filterFactory.afterAuthorization(WOKE_BACKEND)))
                 .build();
     }
 
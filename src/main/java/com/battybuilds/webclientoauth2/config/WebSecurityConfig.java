@@ -1,5 +1,8 @@
 package com.battybuilds.webclientoauth2.config;
 
+import com.battybuilds.webclientoauth2.config.DecodedJwtCache.DecodedJwt;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
@@ -23,29 +26,54 @@ public class WebSecurityConfig {
     static JwtDecoder wrapJwtDecoderWithAudienceCheck(JwtDecoder jwtDecoder, String audience) {
         return token -> {
             Jwt jwt = jwtDecoder.decode(token);
-            if (!jwt.hasClaim(AUD) || !jwt.getClaimAsStringList(AUD).contains(audience)) {
-                String errorDescription = "Audience field does not match";
-                throw new OAuth2AuthenticationException(new BearerTokenError("invalid_resource", HttpStatus.FORBIDDEN,
-                        errorDescription, DEFAULT_URI));
+            if (!hasAudience(jwt, audience)) {
+                throw audienceMismatch();
             }
             return jwt;
         };
     }
 
+    static JwtDecoder wrapJwtDecoderWithAudienceCheck(JwtDecoder jwtDecoder, String audience, DecodedJwtCache cache) {
+        return token -> {
+            DecodedJwt decoded = cache.get(token, uncachedToken -> {
+                Jwt jwt = jwtDecoder.decode(uncachedToken);
+                return new DecodedJwt(jwt, hasAudience(jwt, audience));
+            });
+            if (!decoded.isAudienceMatches()) {
+                throw audienceMismatch();
+            }
+            return decoded.getJwt();
+        };
+    }
+
+    private static boolean hasAudience(Jwt jwt, String audience) {
+        return jwt.hasClaim(AUD) && jwt.getClaimAsStringList(AUD).contains(audience);
+    }
+
+    private static OAuth2AuthenticationException audienceMismatch() {
+        String errorDescription = "Audience field does not match";
+        return new OAuth2AuthenticationException(new BearerTokenError("invalid_resource", HttpStatus.FORBIDDEN,
+                errorDescription, DEFAULT_URI));
+    }
+
     @Configuration
     public static class ResourceServerSecurityConfiguration extends WebSecurityConfigurerAdapter {
 
         String audience = "audience1234";
 
         private final JwtDecoder jwtDecoderByIssuerUri;
+        private final DecodedJwtCache decodedJwtCache;
 
-        public ResourceServerSecurityConfiguration(JwtDecoder jwtDecoderByIssuerUri) {
+        public ResourceServerSecurityConfiguration(JwtDecoder jwtDecoderByIssuerUri,
+                                                   MeterRegistry meterRegistry,
+                                                   @Value("${jwt-cache-max-size}") long jwtCacheMaxSize) {
             this.jwtDecoderByIssuerUri = jwtDecoderByIssuerUri;
+            this.decodedJwtCache = new DecodedJwtCache(jwtCacheMaxSize, meterRegistry);
         }
 
         @Override
         protected void configure(HttpSecurity http) throws Exception {
-            JwtDecoder newJwtDecoder = wrapJwtDecoderWithAudienceCheck(this.jwtDecoderByIssuerUri, audience);
+            JwtDecoder newJwtDecoder = wrapJwtDecoderWithAudienceCheck(this.jwtDecoderByIssuerUri, audience, decodedJwtCache);
 
             http
                     .csrf()
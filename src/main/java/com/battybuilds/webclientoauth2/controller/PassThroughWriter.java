@@ -0,0 +1,101 @@
+package com.battybuilds.webclientoauth2.controller;
+
+import com.battybuilds.webclientoauth2.config.BackendOverloadedException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class PassThroughWriter implements DisposableBean {
+
+    private static final int PREFETCH = 32;
+
+    private final int maxStreams;
+    private final Scheduler writer;
+    private final AtomicInteger streams = new AtomicInteger();
+
+    public PassThroughWriter(@Value("${alarms-pass-through-writer-threads}") int writerThreads) {
+        this.maxStreams = writerThreads;
+        this.writer = Schedulers.newBoundedElastic(writerThreads, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE,
+                "pass-through-writer");
+    }
+
+    // Nothing waits on the backend: buffers are handed to the emitter as they arrive. The servlet write
+    // blocks, so each stream gets a writer thread of its own and a slow caller only ever stalls itself;
+    // once every thread has a stream, further streams are shed rather than queued behind a slow one.
+    // The emitter commits the status as soon as MVC sees it, so it is only released with the first
+    // buffer; an error before then still goes through the ErrorHandler.
+    public Mono<ResponseBodyEmitter> stream(Flux<DataBuffer> body) {
+        return Mono.defer(() -> {
+            if (streams.incrementAndGet() > maxStreams) {
+                streams.decrementAndGet();
+                return Mono.error(new BackendOverloadedException("pass-through", maxStreams));
+            }
+            ResponseBodyEmitter emitter = new JsonEmitter();
+            Sinks.One<ResponseBodyEmitter> head = Sinks.one();
+            Disposable subscription = body
+                    .publishOn(writer, PREFETCH)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .doFinally(signal -> streams.decrementAndGet())
+                    .subscribe(buffer -> {
+                        head.tryEmitValue(emitter);
+                        send(buffer, emitter);
+                    }, error -> {
+                        if (head.tryEmitError(error).isFailure()) {
+                            emitter.completeWithError(error);
+                        }
+                    }, () -> {
+                        head.tryEmitValue(emitter);
+                        emitter.complete();
+                    });
+            emitter.onTimeout(subscription::dispose);
+            emitter.onError(error -> subscription.dispose());
+            return head.asMono().doOnCancel(subscription::dispose);
+        });
+    }
+
+    @Override
+    public void destroy() {
+        writer.dispose();
+    }
+
+    // The buffer itself is sent and written out by DataBufferHttpMessageConverter, which releases it.
+    private static void send(DataBuffer buffer, ResponseBodyEmitter emitter) {
+        try {
+            emitter.send(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (IllegalStateException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+    }
+
+    private static class JsonEmitter extends ResponseBodyEmitter {
+
+        @Override
+        protected void extendResponse(ServerHttpResponse outputMessage) {
+            super.extendResponse(outputMessage);
+            HttpHeaders headers = outputMessage.getHeaders();
+            if (headers.getContentType() == null) {
+                headers.setContentType(MediaType.APPLICATION_JSON);
+            }
+        }
+    }
+}
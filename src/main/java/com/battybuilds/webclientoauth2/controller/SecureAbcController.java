@@ -1,26 +1,40 @@
 package com.battybuilds.webclientoauth2.controller;
 
-import com.battybuilds.webclientoauth2.WokeResponse;
+import com.battybuilds.webclientoauth2.config.Deadline;
 import com.battybuilds.webclientoauth2.service.SecureAbcService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
 
 @RestController
 public class SecureAbcController {
     private final SecureAbcService service;
+    private final PassThroughWriter passThroughWriter;
+    private final boolean passThrough;
 
-    public SecureAbcController(SecureAbcService service) {
+    public SecureAbcController(SecureAbcService service, PassThroughWriter passThroughWriter,
+                               @Value("${alarms-pass-through-enabled}") boolean passThrough) {
         this.service = service;
+        this.passThroughWriter = passThroughWriter;
+        this.passThrough = passThrough;
     }
 
     @GetMapping(value = "/v2/alarms", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<WokeResponse> wakeUp(@RequestHeader(value = "Identification-No")
-                                                       String identificationNo) {
-        WokeResponse response = service.getAlarmsSecurely();
-        response.setIdentificationNumber(identificationNo);
-        return ResponseEntity.ok(response);
+    public Mono<?> wakeUp(@RequestHeader(value = "Identification-No")
+                                  String identificationNo,
+                          @RequestHeader(value = "Request-Timeout", required = false)
+                                  Long requestTimeoutMillis) {
+        if (passThrough) {
+            return passThroughWriter.stream(service.getAlarmsSecurelyPassThrough(identificationNo)
+                    .contextWrite(Deadline.fromRequestTimeout(requestTimeoutMillis)));
+        }
+        return service.getAlarmsSecurely(identificationNo)
+                .doOnNext(response -> response.setIdentificationNumber(identificationNo))
+                .map(ResponseEntity::ok)
+                .contextWrite(Deadline.fromRequestTimeout(requestTimeoutMillis));
     }
 }
@@ -0,0 +1,29 @@
+package com.battybuilds.webclientoauth2.controller;
+
+import com.battybuilds.webclientoauth2.WokeResponse;
+import com.battybuilds.webclientoauth2.config.Deadline;
+import com.battybuilds.webclientoauth2.service.SecureXyzService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+public class SecureXyzController {
+    private final SecureXyzService service;
+
+    public SecureXyzController(SecureXyzService service) {
+        this.service = service;
+    }
+
+    @GetMapping(value = "/v3/alarms", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<WokeResponse> streamAlarms(@RequestHeader(value = "Identification-No")
+                                                   String identificationNo,
+                                           @RequestHeader(value = "Request-Timeout", required = false)
+                                                   Long requestTimeoutMillis) {
+        return service.streamAlarms(identificationNo)
+                .doOnNext(response -> response.setIdentificationNumber(identificationNo))
+                .contextWrite(Deadline.fromRequestTimeout(requestTimeoutMillis));
+    }
+}
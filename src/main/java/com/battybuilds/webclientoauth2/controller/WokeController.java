@@ -2,37 +2,72 @@ package com.battybuilds.webclientoauth2.controller;
 
 import com.battybuilds.webclientoauth2.AlarmRequest;
 import com.battybuilds.webclientoauth2.WokeResponse;
+import com.battybuilds.webclientoauth2.config.Deadline;
 import com.battybuilds.webclientoauth2.service.WokeService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
 
 @RestController
 public class WokeController {
 
     private final WokeService service;
+    private final PassThroughWriter passThroughWriter;
+    private final boolean passThrough;
 
-    public WokeController(WokeService service) {
+    public WokeController(WokeService service, PassThroughWriter passThroughWriter,
+                          @Value("${alarms-pass-through-enabled}") boolean passThrough) {
 
         this.service = service;
+        this.passThroughWriter = passThroughWriter;
+        this.passThrough = passThrough;
     }
 
+    // Either the decoded WokeResponse or, in pass-through mode, the backend's own bytes as they arrive.
     @GetMapping(value = "/v1/alarms", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<WokeResponse> wakeUp(@RequestHeader(value = "Identification-No")
-                                                       String identificationNo) {
-        WokeResponse response = service.getAlarms();
-        response.setIdentificationNumber(identificationNo);
-        return ResponseEntity.ok(response);
+    public Mono<?> wakeUp(@RequestHeader(value = "Identification-No")
+                                  String identificationNo,
+                          @RequestHeader(value = "Request-Timeout", required = false)
+                                  Long requestTimeoutMillis) {
+        if (passThrough) {
+            return passThroughWriter.stream(service.getAlarmsPassThrough(identificationNo)
+                    .contextWrite(Deadline.fromRequestTimeout(requestTimeoutMillis)));
+        }
+        return service.getAlarms(identificationNo)
+                .doOnNext(response -> response.setIdentificationNumber(identificationNo))
+                .map(ResponseEntity::ok)
+                .contextWrite(Deadline.fromRequestTimeout(requestTimeoutMillis));
     }
 
     @PostMapping(value = "/v1/alarm", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<WokeResponse> addAlarm(@RequestHeader(value = "Identification-No")
-                                                         String identificationNo,
-                                                 @RequestBody
-                                                         AlarmRequest request) {
-        WokeResponse response = service.addAlarm(request);
-        response.setIdentificationNumber(identificationNo);
-        return ResponseEntity.ok(response);
+    public Mono<ResponseEntity<WokeResponse>> addAlarm(@RequestHeader(value = "Identification-No")
+                                                               String identificationNo,
+                                                       @RequestHeader(value = "Request-Timeout", required = false)
+                                                               Long requestTimeoutMillis,
+                                                       @RequestBody
+                                                               AlarmRequest request) {
+        return service.addAlarm(request, identificationNo)
+                .doOnNext(response -> response.setIdentificationNumber(identificationNo))
+                .map(ResponseEntity::ok)
+                .contextWrite(Deadline.fromRequestTimeout(requestTimeoutMillis));
+    }
+
+    @PostMapping(value = "/v1/alarms/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<WokeResponse>>> addAlarms(@RequestHeader(value = "Identification-No")
+                                                                      String identificationNo,
+                                                              @RequestHeader(value = "Request-Timeout", required = false)
+                                                                      Long requestTimeoutMillis,
+                                                              @RequestBody
+                                                                      List<AlarmRequest> requests) {
+        return service.addAlarms(requests, identificationNo)
+                .doOnNext(response -> response.setIdentificationNumber(identificationNo))
+                .collectList()
+                .map(ResponseEntity::ok)
+                .contextWrite(Deadline.fromRequestTimeout(requestTimeoutMillis));
     }
 
 }
\ No newline at end of file
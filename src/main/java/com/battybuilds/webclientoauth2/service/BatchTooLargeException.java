@@ -0,0 +1,8 @@
+package com.battybuilds.webclientoauth2.service;
+
+public class BatchTooLargeException extends RuntimeException {
+
+    public BatchTooLargeException(int size, int maxSize) {
+        super("Batch of " + size + " alarms is over the limit of " + maxSize);
+    }
+}
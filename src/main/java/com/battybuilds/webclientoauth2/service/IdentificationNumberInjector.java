@@ -0,0 +1,239 @@
+package com.battybuilds.webclientoauth2.service;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+public class IdentificationNumberInjector {
+
+    private static final byte[] KEY = "identificationNumber".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FIELD_NAME = "\"identificationNumber\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] COMMA = {','};
+
+    private enum State {SEEK_OBJECT, AFTER_BRACE, EXPECT_KEY, IN_KEY, IN_VALUE, DONE}
+
+    // Where the bytes being scanned go: out as they are, held until the key they lead up to is known, or dropped.
+    private enum Mode {EMIT, HOLD, DROP}
+
+    private final byte[] field;
+    private final List<DataBuffer> pending = new ArrayList<>();
+    private State state = State.SEEK_OBJECT;
+    private Mode mode = Mode.EMIT;
+    private int keyIndex;
+    private boolean keyMatches;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+
+    private DataBuffer current;
+    private List<DataBuffer> parts;
+    private int segmentStart;
+
+    private IdentificationNumberInjector(String identificationNumber) {
+        byte[] value = JsonStringEncoder.getInstance().quoteAsUTF8(identificationNumber);
+        field = new byte[FIELD_NAME.length + value.length + 1];
+        System.arraycopy(FIELD_NAME, 0, field, 0, FIELD_NAME.length);
+        System.arraycopy(value, 0, field, FIELD_NAME.length, value.length);
+        field[field.length - 1] = '"';
+    }
+
+    // Our field goes in right after the opening brace, and a top-level identificationNumber from the backend is
+    // cut out together with the comma before it, so the caller sees our value as the decoding path would set it.
+    // The top-level object is scanned to its end, but only the bytes from a top-level comma to the end of the
+    // following key are held back; everything else is forwarded as slices of the backend's own buffers.
+    public static Function<Flux<DataBuffer>, Flux<DataBuffer>> inject(String identificationNumber) {
+        return body -> Flux.defer(() -> {
+            IdentificationNumberInjector injector = new IdentificationNumberInjector(identificationNumber);
+            return body.concatMapIterable(injector::rewrite)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(injector.drainPending())))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .doFinally(signal -> injector.releasePending());
+        });
+    }
+
+    private List<DataBuffer> rewrite(DataBuffer buffer) {
+        if (state == State.DONE) {
+            return List.of(buffer);
+        }
+        int start = buffer.readPosition();
+        int end = buffer.writePosition();
+        current = buffer;
+        parts = new ArrayList<>(2);
+        segmentStart = start;
+        for (int i = start; i < end && state != State.DONE; i++) {
+            scan(buffer.getByte(i), i);
+        }
+        if (segmentStart == start && mode == Mode.EMIT && parts.isEmpty()) {
+            return List.of(buffer);
+        }
+        closeSegment(end);
+        DataBufferUtils.release(buffer);
+        List<DataBuffer> rewritten = parts;
+        current = null;
+        parts = null;
+        return rewritten;
+    }
+
+    private void scan(byte next, int position) {
+        switch (state) {
+            case SEEK_OBJECT:
+                if (isWhitespaceOrByteOrderMark(next)) {
+                    return;
+                }
+                if (next != '{') {
+                    // Not an object, e.g. an error string or an array, so there is nothing to inject into.
+                    state = State.DONE;
+                    return;
+                }
+                insert(position + 1, field);
+                state = State.AFTER_BRACE;
+                return;
+            case AFTER_BRACE:
+                if (isWhitespace(next)) {
+                    return;
+                }
+                if (next != '"') {
+                    state = State.DONE;
+                    return;
+                }
+                // The backend's first member now follows our field, so it gets a comma like every other member.
+                startHold(position);
+                pending.add(current.factory().wrap(COMMA));
+                startKey();
+                return;
+            case EXPECT_KEY:
+                if (isWhitespace(next)) {
+                    return;
+                }
+                if (next != '"') {
+                    endHold(position, true);
+                    state = State.DONE;
+                    return;
+                }
+                startKey();
+                return;
+            case IN_KEY:
+                scanKey(next, position);
+                return;
+            case IN_VALUE:
+                scanValue(next, position);
+                return;
+            default:
+        }
+    }
+
+    private void startKey() {
+        state = State.IN_KEY;
+        keyIndex = 0;
+        keyMatches = true;
+        escaped = false;
+    }
+
+    // An escaped key is never treated as ours; backends do not escape plain ASCII names.
+    private void scanKey(byte next, int position) {
+        if (escaped) {
+            escaped = false;
+            keyMatches = false;
+        } else if (next == '\\') {
+            escaped = true;
+            keyMatches = false;
+        } else if (next == '"') {
+            endHold(position + 1, !(keyMatches && keyIndex == KEY.length));
+            state = State.IN_VALUE;
+            depth = 0;
+            inString = false;
+        } else {
+            keyMatches = keyMatches && keyIndex < KEY.length && KEY[keyIndex] == next;
+            keyIndex++;
+        }
+    }
+
+    private void scanValue(byte next, int position) {
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (next == '\\') {
+                escaped = true;
+            } else if (next == '"') {
+                inString = false;
+            }
+            return;
+        }
+        if (next == '"') {
+            inString = true;
+        } else if (next == '{' || next == '[') {
+            depth++;
+        } else if ((next == '}' || next == ']') && depth > 0) {
+            depth--;
+        } else if (next == ',' && depth == 0) {
+            endDrop(position);
+            startHold(position);
+            state = State.EXPECT_KEY;
+        } else if (next == '}' && depth == 0) {
+            endDrop(position);
+            state = State.DONE;
+        }
+    }
+
+    private void insert(int position, byte[] inserted) {
+        closeSegment(position);
+        parts.add(current.factory().wrap(inserted));
+    }
+
+    private void startHold(int position) {
+        closeSegment(position);
+        mode = Mode.HOLD;
+    }
+
+    private void endHold(int position, boolean keep) {
+        closeSegment(position);
+        if (keep) {
+            parts.addAll(pending);
+        } else {
+            pending.forEach(DataBufferUtils::release);
+        }
+        pending.clear();
+        mode = keep ? Mode.EMIT : Mode.DROP;
+    }
+
+    private void endDrop(int position) {
+        if (mode == Mode.DROP) {
+            closeSegment(position);
+            mode = Mode.EMIT;
+        }
+    }
+
+    private void closeSegment(int position) {
+        if (position > segmentStart && mode != Mode.DROP) {
+            DataBuffer segment = current.retainedSlice(segmentStart, position - segmentStart);
+            (mode == Mode.EMIT ? parts : pending).add(segment);
+        }
+        segmentStart = position;
+    }
+
+    // A body that ends while bytes are held was cut short or malformed; it is forwarded as it came.
+    private List<DataBuffer> drainPending() {
+        List<DataBuffer> drained = new ArrayList<>(pending);
+        pending.clear();
+        return drained;
+    }
+
+    private void releasePending() {
+        pending.forEach(DataBufferUtils::release);
+        pending.clear();
+    }
+
+    private static boolean isWhitespace(byte value) {
+        return value == ' ' || value == '\t' || value == '\n' || value == '\r';
+    }
+
+    private static boolean isWhitespaceOrByteOrderMark(byte value) {
+        return isWhitespace(value) || value == (byte) 0xEF || value == (byte) 0xBB || value == (byte) 0xBF;
+    }
+}
@@ -1,8 +1,14 @@
 package com.battybuilds.webclientoauth2.service;
 
 import com.battybuilds.webclientoauth2.WokeResponse;
+import com.battybuilds.webclientoauth2.config.Deadline;
+import com.battybuilds.webclientoauth2.config.StreamingReads;
+import com.battybuilds.webclientoauth2.config.TenantAuthentication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
@@ -16,13 +22,26 @@ public class SecureAbcService {
         this.webClient = abcWebClient;
     }
 
-    public WokeResponse getAlarmsSecurely() {
-        Mono<WokeResponse> wokeResponseMono = webClient.get()
+    public Mono<WokeResponse> getAlarmsSecurely(String identificationNo) {
+        return webClient.get()
                 .uri("/api/clock/alarms")
-                .header("Identification-Id", "1234")
+                .header("Identification-Id", identificationNo)
                 .retrieve()
-                .bodyToMono(WokeResponse.class);
+                .bodyToMono(WokeResponse.class)
+                .transform(Deadline.within(Duration.ofSeconds(5)))
+                .contextWrite(TenantAuthentication.withTenant(identificationNo));
+    }
 
-        return wokeResponseMono.block(Duration.ofSeconds(5));
+    public Flux<DataBuffer> getAlarmsSecurelyPassThrough(String identificationNo) {
+        return webClient.get()
+                .uri("/api/clock/alarms")
+                .header("Identification-Id", identificationNo)
+                .accept(MediaType.APPLICATION_JSON)
+                .attribute(StreamingReads.ATTRIBUTE, true)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .transform(IdentificationNumberInjector.inject(identificationNo))
+                .transform(Deadline.streamWithin(Duration.ofSeconds(5)))
+                .contextWrite(TenantAuthentication.withTenant(identificationNo));
     }
 }
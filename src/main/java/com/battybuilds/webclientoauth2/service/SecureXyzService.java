@@ -0,0 +1,32 @@
+package com.battybuilds.webclientoauth2.service;
+
+import com.battybuilds.webclientoauth2.WokeResponse;
+import com.battybuilds.webclientoauth2.config.Deadline;
+import com.battybuilds.webclientoauth2.config.TenantAuthentication;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+@Service
+public class SecureXyzService {
+
+    private final WebClient webClient;
+
+    public SecureXyzService(WebClient xyzWebClient) {
+        this.webClient = xyzWebClient;
+    }
+
+    public Flux<WokeResponse> streamAlarms(String identificationNo) {
+        return webClient.get()
+                .uri("/api/clock/alarms")
+                .header("Identification-Id", identificationNo)
+                .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToFlux(WokeResponse.class)
+                .transform(Deadline.streamWithin(Duration.ofSeconds(30)))
+                .contextWrite(TenantAuthentication.withTenant(identificationNo));
+    }
+}
@@ -3,39 +3,79 @@ package com.battybuilds.webclientoauth2.service;
 
 import com.battybuilds.webclientoauth2.AlarmRequest;
 import com.battybuilds.webclientoauth2.WokeResponse;
+import com.battybuilds.webclientoauth2.config.Deadline;
+import com.battybuilds.webclientoauth2.config.StreamingReads;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.List;
 
 @Service
 public class WokeService {
     private final WebClient webClient;
+    private final int batchConcurrency;
+    private final int batchMaxSize;
+    private final Duration batchTimeout;
 
-    public WokeService(WebClient wokeWebClient) {
+    public WokeService(WebClient wokeWebClient,
+                       @Value("${batch-alarm-concurrency}") int batchConcurrency,
+                       @Value("${batch-alarm-max-size}") int batchMaxSize,
+                       @Value("${batch-alarm-timeout}") Duration batchTimeout) {
         this.webClient = wokeWebClient;
+        this.batchConcurrency = batchConcurrency;
+        this.batchMaxSize = batchMaxSize;
+        this.batchTimeout = batchTimeout;
     }
 
-    public WokeResponse getAlarms() {
-        Mono<WokeResponse> wokeResponseMono = webClient.get()
+    public Mono<WokeResponse> getAlarms(String identificationNo) {
+        return webClient.get()
                 .uri("/api/clock/alarms")
-                .header("Identification-Id", "1234")
+                .header("Identification-Id", identificationNo)
                 .retrieve()
-                .bodyToMono(WokeResponse.class);
+                .bodyToMono(WokeResponse.class)
+                .transform(Deadline.within(Duration.ofSeconds(30)));
+    }
 
-        return wokeResponseMono.block(Duration.ofSeconds(30));
+    public Flux<DataBuffer> getAlarmsPassThrough(String identificationNo) {
+        return webClient.get()
+                .uri("/api/clock/alarms")
+                .header("Identification-Id", identificationNo)
+                .accept(MediaType.APPLICATION_JSON)
+                .attribute(StreamingReads.ATTRIBUTE, true)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .transform(IdentificationNumberInjector.inject(identificationNo))
+                .transform(Deadline.streamWithin(Duration.ofSeconds(30)));
     }
 
-    public WokeResponse addAlarm(AlarmRequest requestBody) {
-        Mono<WokeResponse> wokeResponseMono = webClient.post()
+    public Mono<WokeResponse> addAlarm(AlarmRequest requestBody, String identificationNo) {
+        return webClient.post()
                 .uri("/api/clock/alarms")
-                .header("Identification-Id", "1234")
+                .header("Identification-Id", identificationNo)
                 .body(BodyInserters.fromValue(requestBody))
                 .retrieve()
-                .bodyToMono(WokeResponse.class);
+                .bodyToMono(WokeResponse.class)
+                .transform(Deadline.within(Duration.ofSeconds(5)));
+    }
 
-        return wokeResponseMono.block(Duration.ofSeconds(5));
+    public Flux<WokeResponse> addAlarms(List<AlarmRequest> requestBodies, String identificationNo) {
+        if (requestBodies.size() > batchMaxSize) {
+            return Flux.error(new BatchTooLargeException(requestBodies.size(), batchMaxSize));
+        }
+        return Flux.fromIterable(requestBodies)
+                .flatMapSequential(requestBody -> addAlarm(requestBody, identificationNo)
+                        .switchIfEmpty(Mono.fromSupplier(WokeResponse::new))
+                        .onErrorResume(error -> Mono.just(WokeResponse.builder().error(error.getMessage()).build())),
+                        batchConcurrency)
+                // Without a Request-Timeout a full batch could outlast the servlet's async timeout, so the whole
+                // batch gets a budget below it and the items it leaves unfinished come back as per-item errors.
+                .transform(Deadline.allWithin(batchTimeout));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package com.battybuilds.webclientoauth2;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "alarms-pass-through-enabled=true")
+@AutoConfigureMockMvc(addFilters = false)
+class PassThroughIntegrationTest {
+
+    public static MockWebServer mockServer;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        mockServer = new MockWebServer();
+        mockServer.start();
+    }
+
+    @DynamicPropertySource
+    static void backendProperties(DynamicPropertyRegistry registry) {
+        registry.add("base-url", () -> mockServer.url("/").toString());
+    }
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        mockServer.shutdown();
+    }
+
+    @Test
+    void streamsTheBackendBodyWithTheIdentificationNumberInjected() throws Exception {
+        mockServer.enqueue(new MockResponse().setResponseCode(200)
+                .setBody("{\"alarm1\":\"Time to get up\",\"alarm2\":\"You're gonna be late\"}")
+                .addHeader("Content-Type", "application/json"));
+
+        ResultActions result = dispatchAsync(mockMvc.perform(MockMvcRequestBuilders
+                .get("/v1/alarms")
+                .header("Identification-No", "app-id")));
+
+        assertThat(mockServer.takeRequest(5L, TimeUnit.SECONDS).getPath()).isEqualTo("/api/clock/alarms");
+        result.andDo(print()).andExpect(status().isOk());
+        assertThat(result.andReturn().getResponse().getContentAsString())
+                .isEqualTo("{\"identificationNumber\":\"app-id\",\"alarm1\":\"Time to get up\",\"alarm2\":\"You're gonna be late\"}");
+    }
+
+    @Test
+    void replacesAnIdentificationNumberTheBackendSends() throws Exception {
+        mockServer.enqueue(new MockResponse().setResponseCode(200)
+                .setBody("{\"alarm1\":\"Time to get up\",\"identificationNumber\":\"backend-id\"}")
+                .addHeader("Content-Type", "application/json"));
+
+        ResultActions result = dispatchAsync(mockMvc.perform(MockMvcRequestBuilders
+                .get("/v1/alarms")
+                .header("Identification-No", "app-id")));
+
+        mockServer.takeRequest(5L, TimeUnit.SECONDS);
+        result.andExpect(status().isOk());
+        assertThat(result.andReturn().getResponse().getContentAsString())
+                .isEqualTo("{\"identificationNumber\":\"app-id\",\"alarm1\":\"Time to get up\"}");
+    }
+
+    @Test
+    void mapsBackendErrorsThroughTheErrorHandler() throws Exception {
+        mockServer.enqueue(new MockResponse().setResponseCode(500)
+                .setBody("{\"error\":\"What does that even mean?\"}")
+                .addHeader("Content-Type", "application/json"));
+
+        ResultActions result = dispatchAsync(mockMvc.perform(MockMvcRequestBuilders
+                .get("/v1/alarms")
+                .header("Identification-No", "app-id")));
+
+        mockServer.takeRequest(5L, TimeUnit.SECONDS);
+        result.andDo(print()).andExpect(status().is(500));
+        assertThat(result.andReturn().getResponse().getContentAsString()).contains("context: WAKEUP");
+    }
+
+    private ResultActions dispatchAsync(ResultActions resultActions) throws Exception {
+        MvcResult asyncResult = resultActions
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        ResultActions dispatched = mockMvc.perform(asyncDispatch(asyncResult));
+        // Once the status is known the body is streamed through an emitter, which is a second async cycle.
+        return dispatched.andReturn().getRequest().isAsyncStarted() ? dispatchAsync(dispatched) : dispatched;
+    }
+}
@@ -0,0 +1,82 @@
+package com.battybuilds.webclientoauth2;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+class SecureStreamingIntegrationTest {
+
+    public static MockWebServer mockXyzServer;
+    public static MockWebServer mockAuthServer;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        mockXyzServer = new MockWebServer();
+        mockAuthServer = new MockWebServer();
+        mockXyzServer.start();
+        mockAuthServer.start();
+    }
+
+    @DynamicPropertySource
+    static void backendUrlProperties(DynamicPropertyRegistry registry) {
+        registry.add("xyz-base-url", () -> mockXyzServer.url("/").toString());
+        registry.add("azure-token-url", () -> mockAuthServer.url("/") + "/token");
+    }
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        mockXyzServer.shutdown();
+        mockAuthServer.shutdown();
+    }
+
+    @Test
+    void streamsJsonArrayFromXyzAsNdjson() throws Exception {
+        mockAuthServer.enqueue(new MockResponse().setResponseCode(200)
+                .setBody("{\"token_type\": \"Bearer\", \"expires_in\": \"3599\", \"access_token\": \"mock-Token\"}")
+                .addHeader("Content-Type", "application/json; charset=utf-8"));
+        mockXyzServer.enqueue(new MockResponse().setResponseCode(200)
+                .addHeader("Content-Type", "application/json")
+                .setChunkedBody("[{\"alarm1\":\"Time to get up\"},{\"alarm1\":\"You're gonna be late\"},{\"alarm1\":\"Your boss is calling\"}]", 16));
+
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/v3/alarms")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .header("Identification-No", "app-id")
+                        .header("Authorization", "Bearer 123"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        asyncResult.getAsyncResult(TimeUnit.SECONDS.toMillis(5));
+
+        String[] lines = asyncResult.getResponse().getContentAsString().trim().split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).contains("\"alarm1\":\"Time to get up\"", "\"identificationNumber\":\"app-id\"");
+        assertThat(lines[2]).contains("\"alarm1\":\"Your boss is calling\"");
+
+        RecordedRequest recordedXyzRequest = mockXyzServer.takeRequest(1, TimeUnit.SECONDS);
+        assertThat(recordedXyzRequest.getPath()).isEqualTo("/api/clock/alarms");
+        assertThat(recordedXyzRequest.getHeader("Authorization")).isEqualTo("Bearer mock-Token");
+    }
+}
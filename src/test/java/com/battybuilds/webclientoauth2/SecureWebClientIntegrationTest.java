@@ -13,13 +13,22 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -27,6 +36,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 //@ActiveProfiles("local")  Can be added if needed - still works
 class SecureWebClientIntegrationTest {
 
+    private static final int PARALLEL_REQUESTS = 200;
+    private static final int PARALLEL_THREADS = 32;
+
     public static MockWebServer mockAbcServer;
     public static MockWebServer mockAuthServer;
 
@@ -59,13 +71,15 @@ class SecureWebClientIntegrationTest {
     void handlesTokenCaching() throws Exception {
         mockTokenCall();
         String responseBody = objectMapper.writeValueAsString(new WokeResponse());
-        mockBackendEndpoint(200, responseBody);
-        mockBackendEndpoint(200, responseBody);
+        for (int i = 0; i < PARALLEL_REQUESTS + 2; i++) {
+            mockBackendEndpoint(200, responseBody);
+        }
 
+        executeParallelRequests();
         executeRequest();
         executeRequest();
 
-        assertThatAbcServerIsCalledTwice();
+        assertThatAbcServerIsCalled(PARALLEL_REQUESTS + 2);
         assertThatAuthenticationServerIsOnlyCalledOnce();
     }
 
@@ -97,12 +111,12 @@ class SecureWebClientIntegrationTest {
         assertCorrectResponse(resultActions, 500, "\"error\":\"500 Internal Server Error", "context: WAKEUP");
     }
 
-    private void assertThatAbcServerIsCalledTwice() {
-        assertThat(mockAuthServer.getRequestCount()).isEqualTo(1);
+    private void assertThatAbcServerIsCalled(int times) {
+        assertThat(mockAbcServer.getRequestCount()).isEqualTo(times);
     }
 
     private void assertThatAuthenticationServerIsOnlyCalledOnce() {
-        assertThat(mockAbcServer.getRequestCount()).isEqualTo(2);
+        assertThat(mockAuthServer.getRequestCount()).isEqualTo(1);
     }
 
     private void assertAbcServerWasCalledCorrectly(RecordedRequest recordedAbcRequest) {
@@ -146,10 +160,28 @@ class SecureWebClientIntegrationTest {
     }
 
     private ResultActions executeRequest() throws Exception {
-        return mockMvc.perform(MockMvcRequestBuilders
-                .get("/v2/alarms")
-                .header("Identification-No", "app-id")
-                .header("Authorization", "Bearer 123"));
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/v2/alarms")
+                        .header("Identification-No", "app-id")
+                        .header("Authorization", "Bearer 123"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(asyncResult));
+    }
+
+    private void executeParallelRequests() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_THREADS);
+        try {
+            List<Future<ResultActions>> results = new ArrayList<>();
+            for (int i = 0; i < PARALLEL_REQUESTS; i++) {
+                results.add(executor.submit(this::executeRequest));
+            }
+            for (Future<ResultActions> result : results) {
+                result.get(30, TimeUnit.SECONDS).andExpect(status().isOk());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     private void assertCorrectResponse(ResultActions resultActions, int status, String... message) throws Exception {
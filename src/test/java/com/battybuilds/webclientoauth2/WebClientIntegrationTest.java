@@ -14,14 +14,19 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -78,6 +83,22 @@ class WebClientIntegrationTest {
         verifyResults(result, 500, "\"error\":\"500 Internal Server Error", "context: WAKEUP");
     }
 
+    @Test
+    void handlesCallerDeadlineForGET() throws Exception {
+        mockServer.enqueue(new MockResponse().setResponseCode(200)
+                .setBody("{\"alarm1\": \"Hello World\"}")
+                .addHeader("Content-Type", "application/json")
+                .setHeadersDelay(2, TimeUnit.SECONDS));
+
+        ResultActions result = dispatchAsync(mockMvc.perform(MockMvcRequestBuilders
+                .get("/v1/alarms")
+                .header("Identification-No", "app-id")
+                .header("Request-Timeout", "200")));
+
+        assertBackendServerWasCalledCorrectlyForGET(mockServer.takeRequest(5L, TimeUnit.SECONDS));
+        verifyResults(result, 504, "Request deadline exceeded", "context: DEADLINE");
+    }
+
     @Test
     void handlesSuccessResponseForPOST() throws Exception {
         mockExternalEndpoint(200, "{\"alarm1\": \"Hello World\"}");
@@ -89,19 +110,65 @@ class WebClientIntegrationTest {
         verifyResults(result, 200, "\"alarm1\":\"Hello World\"");
     }
 
+    @Test
+    void handlesBatchPOSTWithPerItemErrors() throws Exception {
+        mockExternalEndpoint(200, "{\"alarm1\": \"Hello World\"}");
+        mockExternalEndpoint(200, "{\"alarm1\": \"Hello World\"}");
+        mockExternalEndpoint(500, "{\"error\": \"What does that even mean?\"}");
+        AlarmRequest alarm = AlarmRequest.builder().day(10).hour(10).month(10).year(1972).message("Hi").build();
+        String requestBody = new ObjectMapper().writeValueAsString(List.of(alarm, alarm, alarm));
+
+        ResultActions result = dispatchAsync(mockMvc.perform(MockMvcRequestBuilders
+                .post("/v1/alarms/batch")
+                .header("Identification-No", "app-id")
+                .header("Content-Type", "application/json")
+                .content(requestBody)));
+
+        for (int i = 0; i < 3; i++) {
+            assertBackendServerWasCalledCorrectlyForPOST(mockServer.takeRequest(5L, TimeUnit.SECONDS));
+        }
+        verifyResults(result, 200, "\"alarm1\":\"Hello World\"", "\"error\":\"500 Internal Server Error",
+                "\"identificationNumber\":\"app-id\"");
+        String responseBody = result.andReturn().getResponse().getContentAsString();
+        assertThat(objectMapper.readValue(responseBody, WokeResponse[].class)).hasSize(3);
+    }
+
+    @Test
+    void rejectsBatchesOverTheMaxSize() throws Exception {
+        AlarmRequest alarm = AlarmRequest.builder().day(10).hour(10).month(10).year(1972).message("Hi").build();
+        String requestBody = new ObjectMapper().writeValueAsString(Collections.nCopies(101, alarm));
+        int backendCalls = mockServer.getRequestCount();
+
+        ResultActions result = dispatchAsync(mockMvc.perform(MockMvcRequestBuilders
+                .post("/v1/alarms/batch")
+                .header("Identification-No", "app-id")
+                .header("Content-Type", "application/json")
+                .content(requestBody)));
+
+        verifyResults(result, 400, "over the limit of 100", "context: BATCH");
+        assertThat(mockServer.getRequestCount()).isEqualTo(backendCalls);
+    }
+
     private ResultActions executeGetRequest() throws Exception {
-        return mockMvc.perform(MockMvcRequestBuilders
+        return dispatchAsync(mockMvc.perform(MockMvcRequestBuilders
                 .get("/v1/alarms")
                 .header("Identification-No", "app-id")
-                .header("Authorization", "Bearer 123"));
+                .header("Authorization", "Bearer 123")));
     }
 
     private ResultActions executePostRequest(String requestBody) throws Exception {
-        return mockMvc.perform(MockMvcRequestBuilders
+        return dispatchAsync(mockMvc.perform(MockMvcRequestBuilders
                 .post("/v1/alarm")
                 .header("Identification-No", "app-id")
                 .header("Content-Type", "application/json")
-                .content(requestBody));
+                .content(requestBody)));
+    }
+
+    private ResultActions dispatchAsync(ResultActions resultActions) throws Exception {
+        MvcResult asyncResult = resultActions
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(asyncResult));
     }
 
     private void mockExternalEndpoint(int responseCode, String body) {
@@ -0,0 +1,140 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.security.oauth2.client.endpoint.OAuth2ClientCredentialsGrantRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AccessTokenResponse;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AzureTokenResponseClientTest {
+
+    @RegisterExtension
+    final MockBackend mockAuthServer = new MockBackend();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ConnectionProvider connectionProvider;
+    private AzureTokenResponseClient tokenResponseClient;
+    private OAuth2ClientCredentialsGrantRequest grantRequest;
+
+    @BeforeEach
+    void setUp() {
+        // A single pooled connection: any exchange that fails to release it starves the next token request.
+        connectionProvider = ConnectionProvider.builder("token-test")
+                .maxConnections(1)
+                .pendingAcquireTimeout(Duration.ofSeconds(1))
+                .build();
+        tokenResponseClient = new AzureTokenResponseClient("abc",
+                new ReactorClientHttpConnector(HttpClient.create(connectionProvider)),
+                meterRegistry, Duration.ofMillis(300), 0.5);
+        grantRequest = new OAuth2ClientCredentialsGrantRequest(
+                OAuth2TestClients.registration(mockAuthServer.url("/token")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionProvider.dispose();
+    }
+
+    @Test
+    void releasesConnectionsWhenTheTokenEndpointFails() {
+        for (int i = 0; i < 5; i++) {
+            mockAuthServer.enqueue(new MockResponse().setResponseCode(503)
+                    .addHeader("Content-Type", "text/html")
+                    .setBody("<html>Service Unavailable</html>"));
+        }
+        mockAuthServer.enqueue(tokenResponse());
+
+        for (int i = 0; i < 5; i++) {
+            StepVerifier.create(tokenResponseClient.getTokenResponse(grantRequest))
+                    .expectError()
+                    .verify(Duration.ofSeconds(5));
+        }
+        OAuth2AccessTokenResponse response = tokenResponseClient.getTokenResponse(grantRequest).block(Duration.ofSeconds(5));
+
+        assertThat(response.getAccessToken().getTokenValue()).isEqualTo("mock-Token");
+    }
+
+    @Test
+    void timesOutSlowTokenRequestsAndReleasesTheirConnection() {
+        for (int i = 0; i < 3; i++) {
+            mockAuthServer.enqueue(tokenResponse().setHeadersDelay(2, TimeUnit.SECONDS));
+        }
+        mockAuthServer.enqueue(tokenResponse());
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(tokenResponseClient.getTokenResponse(grantRequest))
+                    .expectError(TimeoutException.class)
+                    .verify(Duration.ofSeconds(5));
+        }
+        OAuth2AccessTokenResponse response = tokenResponseClient.getTokenResponse(grantRequest).block(Duration.ofSeconds(5));
+
+        assertThat(response.getAccessToken().getTokenValue()).isEqualTo("mock-Token");
+    }
+
+    @Test
+    void timesTokenRequestsByOutcome() {
+        mockAuthServer.enqueue(new MockResponse().setResponseCode(503)
+                .addHeader("Content-Type", "text/html")
+                .setBody("<html>Service Unavailable</html>"));
+        mockAuthServer.enqueue(tokenResponse());
+
+        StepVerifier.create(tokenResponseClient.getTokenResponse(grantRequest))
+                .expectError()
+                .verify(Duration.ofSeconds(5));
+        tokenResponseClient.getTokenResponse(grantRequest).block(Duration.ofSeconds(5));
+
+        assertThat(tokenTimer("SUCCESS").count()).isEqualTo(1);
+        assertThat(tokenTimer("ERROR").count()).isEqualTo(1);
+    }
+
+    @Test
+    void sharesOneTokenResponseUntilItIsDueForRefresh() throws Exception {
+        mockAuthServer.enqueue(MockBackend.json("{\"token_type\":\"Bearer\",\"expires_in\":1,\"access_token\":\"token-1\"}"));
+        mockAuthServer.enqueue(MockBackend.json("{\"token_type\":\"Bearer\",\"expires_in\":1,\"access_token\":\"token-2\"}"));
+
+        OAuth2AccessTokenResponse first = tokenResponseClient.getTokenResponse(grantRequest).block(Duration.ofSeconds(5));
+        OAuth2AccessTokenResponse shared = tokenResponseClient.getTokenResponse(grantRequest).block(Duration.ofSeconds(5));
+        Thread.sleep(600);
+        OAuth2AccessTokenResponse replaced = tokenResponseClient.getTokenResponse(grantRequest).block(Duration.ofSeconds(5));
+
+        assertThat(shared).isSameAs(first);
+        assertThat(replaced.getAccessToken().getTokenValue()).isEqualTo("token-2");
+        assertThat(mockAuthServer.requestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void fetchesAgainOnceTheSharedTokenIsRejected() {
+        mockAuthServer.enqueue(MockBackend.json("{\"token_type\":\"Bearer\",\"expires_in\":3599,\"access_token\":\"token-1\"}"));
+        mockAuthServer.enqueue(MockBackend.json("{\"token_type\":\"Bearer\",\"expires_in\":3599,\"access_token\":\"token-2\"}"));
+
+        tokenResponseClient.getTokenResponse(grantRequest).block(Duration.ofSeconds(5));
+        tokenResponseClient.forget("token-1");
+        OAuth2AccessTokenResponse response = tokenResponseClient.getTokenResponse(grantRequest).block(Duration.ofSeconds(5));
+
+        assertThat(response.getAccessToken().getTokenValue()).isEqualTo("token-2");
+        assertThat(mockAuthServer.requestCount()).isEqualTo(2);
+    }
+
+    private Timer tokenTimer(String outcome) {
+        return meterRegistry.get("azure.token.requests")
+                .tags("registration", "abc", "outcome", outcome)
+                .timer();
+    }
+
+    private MockResponse tokenResponse() {
+        return MockBackend.json("{\"token_type\":\"Bearer\",\"expires_in\":3599,\"access_token\":\"mock-Token\"}");
+    }
+}
@@ -0,0 +1,182 @@
+package com.battybuilds.webclientoauth2.config;
+
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockResponse;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class BackendConnectorFactoryTest {
+
+    @RegisterExtension
+    final MockBackend backend = new MockBackend();
+    private BackendConnectorFactory connectorFactory;
+
+    @AfterEach
+    void tearDown() {
+        if (connectorFactory != null) {
+            connectorFactory.destroy();
+        }
+    }
+
+    @Test
+    void multiplexesRequestsOverH2cWithPriorKnowledge() {
+        backend.server().setProtocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+        for (int i = 0; i < 10; i++) {
+            backend.enqueue(new MockResponse().setResponseCode(200)
+                    .setBody("ok")
+                    .setHeadersDelay(100, TimeUnit.MILLISECONDS));
+        }
+        connectorFactory = new BackendConnectorFactory(environment().withProperty("abc-http-protocol", "h2c-prior-knowledge"), "");
+
+        List<String> bodies = Flux.range(0, 10)
+                .flatMap(i -> webClient("abc").get()
+                        .uri("/api/clock/alarms")
+                        .retrieve()
+                        .bodyToMono(String.class))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(bodies).hasSize(10).containsOnly("ok");
+        assertThat(backend.requestCount()).isEqualTo(10);
+    }
+
+    @Test
+    void usesHttp11ByDefault() {
+        backend.enqueue(new MockResponse().setResponseCode(200).setBody("ok"));
+        connectorFactory = new BackendConnectorFactory(environment(), "");
+
+        String body = webClient("abc").get()
+                .uri("/api/clock/alarms")
+                .retrieve()
+                .bodyToMono(String.class)
+                .block(Duration.ofSeconds(5));
+
+        assertThat(body).isEqualTo("ok");
+    }
+
+    @Test
+    void negotiatesAndDecompressesGzipResponses() throws Exception {
+        backend.enqueue(new MockResponse().setResponseCode(200)
+                .setBody(gzip("{\"alarm1\":\"Time to get up\"}"))
+                .addHeader("Content-Encoding", "gzip")
+                .addHeader("Content-Type", "application/json"));
+        connectorFactory = new BackendConnectorFactory(environment(), "");
+
+        String body = webClient("xyz").get()
+                .uri("/api/clock/alarms")
+                .retrieve()
+                .bodyToMono(String.class)
+                .block(Duration.ofSeconds(5));
+
+        assertThat(body).isEqualTo("{\"alarm1\":\"Time to get up\"}");
+        assertThat(backend.takeRequest().getHeader("Accept-Encoding")).contains("gzip");
+    }
+
+    @Test
+    void appliesTheInMemoryLimitToDecompressedBytes() throws Exception {
+        backend.enqueue(new MockResponse().setResponseCode(200)
+                .setBody(gzip("a".repeat(64 * 1024)))
+                .addHeader("Content-Encoding", "gzip")
+                .addHeader("Content-Type", "text/plain"));
+        connectorFactory = new BackendConnectorFactory(environment(), "");
+        WebClient webClient = WebClient.builder()
+                .baseUrl(backend.url())
+                .clientConnector(connectorFactory.connectorFor("xyz"))
+                .exchangeStrategies(ExchangeStrategies.builder()
+                        .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(16 * 1024))
+                        .build())
+                .build();
+
+        Throwable error = catchThrowable(() -> webClient.get()
+                .uri("/api/clock/alarms")
+                .retrieve()
+                .bodyToMono(String.class)
+                .block(Duration.ofSeconds(5)));
+
+        assertThat(NestedExceptionUtils.getMostSpecificCause(error)).isInstanceOf(DataBufferLimitException.class);
+    }
+
+    @Test
+    void decodesResponsesOnTheBackendsOwnEventLoops() {
+        backend.enqueue(new MockResponse().setResponseCode(200).setBody("ok"));
+        backend.enqueue(new MockResponse().setResponseCode(200).setBody("ok"));
+        connectorFactory = new BackendConnectorFactory(environment().withProperty("xyz-event-loop-threads", "1"), "");
+
+        String xyzThread = webClient("xyz").get()
+                .uri("/api/clock/alarms")
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(body -> Thread.currentThread().getName())
+                .block(Duration.ofSeconds(5));
+        String abcThread = webClient("abc").get()
+                .uri("/api/clock/alarms")
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(body -> Thread.currentThread().getName())
+                .block(Duration.ofSeconds(5));
+
+        assertThat(xyzThread).startsWith("http-xyz");
+        assertThat(abcThread).doesNotStartWith("http-xyz");
+    }
+
+    @Test
+    void rejectsUnknownProtocols() {
+        connectorFactory = new BackendConnectorFactory(environment().withProperty("abc-http-protocol", "spdy"), "");
+
+        assertThatThrownBy(() -> connectorFactory.connectorFor("abc"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("spdy");
+    }
+
+    private Buffer gzip(String body) throws IOException {
+        Buffer compressed = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(compressed))) {
+            sink.writeUtf8(body);
+        }
+        return compressed;
+    }
+
+    private WebClient webClient(String backend) {
+        return WebClient.builder()
+                .baseUrl(backend.url())
+                .clientConnector(connectorFactory.connectorFor(backend))
+                .build();
+    }
+
+    private MockEnvironment environment() {
+        return new MockEnvironment()
+                .withProperty("pool-max-connections", "50")
+                .withProperty("pool-pending-acquire-max-count", "200")
+                .withProperty("pool-pending-acquire-timeout", "5s")
+                .withProperty("pool-max-idle-time", "30s")
+                .withProperty("pool-max-life-time", "5m")
+                .withProperty("pool-evict-in-background", "30s")
+                .withProperty("pool-leasing-strategy", "lifo")
+                .withProperty("connect-timeout", "5s")
+                .withProperty("response-timeout", "30s")
+                .withProperty("write-timeout", "10s")
+                .withProperty("http-protocol", "h1")
+                .withProperty("compression-enabled", "true")
+                .withProperty("event-loop-threads", "0");
+    }
+}
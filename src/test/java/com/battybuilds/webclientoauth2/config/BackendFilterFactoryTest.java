@@ -0,0 +1,103 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BackendFilterFactoryTest {
+
+    private static final String ALARMS = "{\"alarm1\":\"Time to get up\"}";
+
+    @RegisterExtension
+    final MockBackend backend = new MockBackend();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void timesRequestsWithTheBackendStatusAndOutcome() {
+        WebClient webClient = webClient();
+        backend.enqueueJson(ALARMS);
+        backend.enqueue(new MockResponse().setResponseCode(500));
+
+        webClient.get().uri("/api/clock/alarms").retrieve().bodyToMono(String.class).block(Duration.ofSeconds(5));
+        StepVerifier.create(webClient.get().uri("/api/clock/alarms").retrieve().bodyToMono(String.class))
+                .expectError(WebClientResponseException.class)
+                .verify(Duration.ofSeconds(5));
+
+        Timer succeeded = meterRegistry.get("http.client.requests")
+                .tags("backend", "abc", "status", "200", "outcome", "SUCCESS", "method", "GET")
+                .timer();
+        Timer failed = meterRegistry.get("http.client.requests")
+                .tags("backend", "abc", "status", "500", "outcome", "SERVER_ERROR", "method", "GET")
+                .timer();
+        assertThat(succeeded.count()).isEqualTo(1);
+        assertThat(failed.count()).isEqualTo(1);
+    }
+
+    @Test
+    void recordsTheSizeOfEachResponseBody() {
+        WebClient webClient = webClient();
+        backend.enqueueJson(ALARMS);
+        backend.enqueueJson("{}");
+
+        webClient.get().uri("/api/clock/alarms").retrieve().bodyToMono(String.class).block(Duration.ofSeconds(5));
+        webClient.get().uri("/api/clock/alarms").retrieve().bodyToMono(String.class).block(Duration.ofSeconds(5));
+
+        DistributionSummary responseSize = meterRegistry.get("http.client.response.size").tag("backend", "abc").summary();
+        assertThat(responseSize.count()).isEqualTo(2);
+        assertThat(responseSize.totalAmount()).isEqualTo(ALARMS.length() + 2);
+        assertThat(responseSize.max()).isEqualTo(ALARMS.length());
+    }
+
+    @Test
+    void capsRequestsInFlightOverHttp2AtTheStreamLimit() {
+        BackendFilterFactory filterFactory = new BackendFilterFactory(environment()
+                .withProperty("abc-http-protocol", "h2c")
+                .withProperty("pool-max-connections", "2")
+                .withProperty("http2-max-concurrent-streams", "3"), meterRegistry);
+
+        List<ExchangeFilterFunction> filters = filterFactory.afterAuthorization("abc");
+
+        assertThat(filters).hasAtLeastOneElementOfType(ConcurrencyLimitFilter.class);
+        assertThat(meterRegistry.get("http.client.concurrency.limit").tag("backend", "abc").gauge().value()).isEqualTo(6);
+    }
+
+    @Test
+    void leavesHttp11RequestsToThePool() {
+        BackendFilterFactory filterFactory = new BackendFilterFactory(environment(), meterRegistry);
+
+        List<ExchangeFilterFunction> filters = filterFactory.afterAuthorization("abc");
+
+        assertThat(filters).doesNotHaveAnyElementsOfTypes(ConcurrencyLimitFilter.class);
+        assertThat(meterRegistry.find("http.client.concurrency.limit").gauge()).isNull();
+    }
+
+    private WebClient webClient() {
+        BackendFilterFactory filterFactory = new BackendFilterFactory(environment(), meterRegistry);
+        return WebClient.builder()
+                .baseUrl(backend.url())
+                .filters(filters -> filters.addAll(filterFactory.afterAuthorization("abc")))
+                .build();
+    }
+
+    private MockEnvironment environment() {
+        return new MockEnvironment()
+                .withProperty("hedging-enabled", "false")
+                .withProperty("concurrency-limit-enabled", "false")
+                .withProperty("http-protocol", "h1")
+                .withProperty("pool-max-connections", "50")
+                .withProperty("http2-max-concurrent-streams", "100");
+    }
+}
@@ -0,0 +1,98 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedAuthorizedClientServiceTest {
+
+    @Test
+    void keepsOneClientPerTenant() {
+        BoundedAuthorizedClientService clientService = new BoundedAuthorizedClientService(100, new SimpleMeterRegistry(), "abc");
+
+        save(clientService, "tenant-1", "token-1", Duration.ofHours(1));
+        save(clientService, "tenant-2", "token-2", Duration.ofHours(1));
+
+        assertThat(tokenFor(clientService, "tenant-1")).isEqualTo("token-1");
+        assertThat(tokenFor(clientService, "tenant-2")).isEqualTo("token-2");
+    }
+
+    @Test
+    void staysWithinItsSizeBoundAsTenantsAccumulate() {
+        BoundedAuthorizedClientService clientService = new BoundedAuthorizedClientService(100, new SimpleMeterRegistry(), "abc");
+
+        for (int i = 0; i < 20_000; i++) {
+            save(clientService, "tenant-" + i, "token-" + i, Duration.ofHours(1));
+        }
+
+        assertThat(clientService.size()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    void dropsClientsOnceTheirTokenHasExpired() {
+        BoundedAuthorizedClientService clientService = new BoundedAuthorizedClientService(100, new SimpleMeterRegistry(), "abc");
+
+        save(clientService, "tenant-1", "token-1", Duration.ofMillis(-1));
+
+        assertThat(clientService.loadAuthorizedClient("abc", "tenant-1").block()).isNull();
+    }
+
+    @Test
+    void removesClients() {
+        BoundedAuthorizedClientService clientService = new BoundedAuthorizedClientService(100, new SimpleMeterRegistry(), "abc");
+        save(clientService, "tenant-1", "token-1", Duration.ofHours(1));
+
+        clientService.removeAuthorizedClient("abc", "tenant-1").block();
+
+        assertThat(clientService.loadAuthorizedClient("abc", "tenant-1").block()).isNull();
+    }
+
+    @Test
+    void tellsTheListenerAboutClientsEvictedBySize() throws Exception {
+        Set<String> evicted = ConcurrentHashMap.newKeySet();
+        BoundedAuthorizedClientService clientService = new BoundedAuthorizedClientService(10, new SimpleMeterRegistry(),
+                "abc", client -> evicted.add(client.getPrincipalName()));
+
+        for (int i = 0; i < 100; i++) {
+            save(clientService, "tenant-" + i, "token-" + i, Duration.ofHours(1));
+        }
+        clientService.size();
+        Instant deadline = Instant.now().plusSeconds(5);
+        while (evicted.size() < 90 && Instant.now().isBefore(deadline)) {
+            Thread.sleep(10);
+        }
+
+        assertThat(evicted).hasSize(90);
+    }
+
+    @Test
+    void doesNotTellTheListenerAboutRemovedClients() throws Exception {
+        Set<String> evicted = ConcurrentHashMap.newKeySet();
+        BoundedAuthorizedClientService clientService = new BoundedAuthorizedClientService(10, new SimpleMeterRegistry(),
+                "abc", client -> evicted.add(client.getPrincipalName()));
+        save(clientService, "tenant-1", "token-1", Duration.ofHours(1));
+
+        clientService.removeAuthorizedClient("abc", "tenant-1").block();
+        Thread.sleep(100);
+
+        assertThat(evicted).isEmpty();
+    }
+
+    private void save(BoundedAuthorizedClientService clientService, String tenant, String tokenValue, Duration lifetime) {
+        OAuth2AuthorizedClient authorizedClient = OAuth2TestClients.authorizedClient(tenant, tokenValue,
+                Instant.now().minusSeconds(1), Instant.now().plus(lifetime));
+        clientService.saveAuthorizedClient(authorizedClient, TenantAuthentication.of(tenant)).block();
+    }
+
+    private String tokenFor(BoundedAuthorizedClientService clientService, String tenant) {
+        OAuth2AuthorizedClient client = clientService.<OAuth2AuthorizedClient>loadAuthorizedClient("abc", tenant).block();
+        return client.getAccessToken().getTokenValue();
+    }
+}
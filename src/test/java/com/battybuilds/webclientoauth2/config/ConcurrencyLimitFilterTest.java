@@ -0,0 +1,122 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    @RegisterExtension
+    final MockBackend backend = new MockBackend();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void rejectsRequestsOverTheLimitWithoutCallingTheBackend() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 1, 10, Duration.ofSeconds(5), 0.9);
+        WebClient webClient = webClientWith(limiter);
+        for (int i = 0; i < 5; i++) {
+            backend.enqueue(new MockResponse().setResponseCode(200)
+                    .setBody("ok")
+                    .setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        }
+
+        List<String> results = Flux.range(0, 5)
+                .flatMap(i -> webClient.get()
+                        .uri("/api/clock/alarms")
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .onErrorResume(BackendOverloadedException.class, error -> Mono.just("rejected")))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(results).filteredOn("rejected"::equals).hasSize(3);
+        assertThat(backend.requestCount()).isEqualTo(2);
+        assertThat(meterRegistry.get("http.client.concurrency.rejected").counter().count()).isEqualTo(3);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void backsOffWhenTheBackendIsSlowOrFailing() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 1, 20, Duration.ofMillis(100), 0.5);
+        WebClient webClient = webClientWith(limiter);
+        backend.enqueue(new MockResponse().setResponseCode(200).setBody("ok")
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        backend.enqueue(new MockResponse().setResponseCode(503));
+
+        webClient.get().uri("/slow").retrieve().bodyToMono(String.class).block(Duration.ofSeconds(5));
+        assertThat(limiter.getLimit()).isEqualTo(5);
+
+        webClient.get().uri("/failing").retrieve().bodyToMono(String.class)
+                .onErrorResume(error -> Mono.empty())
+                .block(Duration.ofSeconds(5));
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(meterRegistry.get("http.client.concurrency.limit").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void callerDeadlinesDoNotShrinkTheLimit() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 1, 20, Duration.ofSeconds(5), 0.5);
+        WebClient webClient = WebClient.builder()
+                .baseUrl(backend.url())
+                .filter(new ConcurrencyLimitFilter("abc", limiter, meterRegistry))
+                .filter(new DeadlineFilter())
+                .build();
+        backend.enqueue(new MockResponse().setResponseCode(200).setBody("ok")
+                .setHeadersDelay(500, TimeUnit.MILLISECONDS));
+
+        StepVerifier.create(webClient.get().uri("/api/clock/alarms").retrieve().bodyToMono(String.class)
+                        .contextWrite(Deadline.fromRequestTimeout(10L)))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void holdsTheSlotUntilTheBodyHasBeenRead() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 1, 20, Duration.ofSeconds(5), 0.5);
+        WebClient webClient = webClientWith(limiter);
+        backend.enqueue(new MockResponse().setResponseCode(200).setBody("ok"));
+
+        String body = webClient.get()
+                .uri("/api/clock/alarms")
+                .exchangeToMono(response -> {
+                    assertThat(limiter.getInFlight()).isEqualTo(1);
+                    return response.bodyToMono(String.class);
+                })
+                .block(Duration.ofSeconds(5));
+
+        assertThat(body).isEqualTo("ok");
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void growsTheLimitWhileItIsInUseAndFast() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 1, 20, Duration.ofSeconds(1), 0.9);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.onSuccess(TimeUnit.MILLISECONDS.toNanos(10));
+
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    private WebClient webClientWith(AimdConcurrencyLimiter limiter) {
+        return WebClient.builder()
+                .baseUrl(backend.url())
+                .filter(new ConcurrencyLimitFilter("abc", limiter, meterRegistry))
+                .build();
+    }
+}
@@ -0,0 +1,111 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.battybuilds.webclientoauth2.WokeResponse;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunctions;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadlineFilterTest {
+
+    private static final String ALARMS = "{\"alarm1\":\"Time to get up\"}";
+
+    @RegisterExtension
+    final MockBackend backend = new MockBackend();
+    private WebClient webClient;
+
+    @BeforeEach
+    void setUp() {
+        webClient = WebClient.builder()
+                .baseUrl(backend.url())
+                .filter(new DeadlineFilter())
+                .build();
+    }
+
+    @Test
+    void cancelsTheExchangeWhenTheCallerDeadlinePasses() {
+        backend.enqueue(MockBackend.json(ALARMS).setHeadersDelay(2, TimeUnit.SECONDS));
+
+        StepVerifier.create(getAlarms().contextWrite(Deadline.fromRequestTimeout(200L)))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void doesNotCallTheBackendOnceTheDeadlineHasPassed() {
+        StepVerifier.create(getAlarms().contextWrite(Deadline.fromRequestTimeout(0L)))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(1));
+
+        assertThat(backend.requestCount()).isZero();
+    }
+
+    @Test
+    void serviceBudgetIsCappedByTheCallerDeadline() {
+        backend.enqueue(MockBackend.json(ALARMS).setHeadersDelay(2, TimeUnit.SECONDS));
+
+        StepVerifier.create(getAlarms()
+                        .transform(Deadline.within(Duration.ofSeconds(30)))
+                        .contextWrite(Deadline.fromRequestTimeout(200L)))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void reportsABackendStallingMidBodyAsTheDeadlinePassing() {
+        backend.enqueue(MockBackend.json(ALARMS).setBodyDelay(2, TimeUnit.SECONDS));
+        ExchangeFunction exchange = ExchangeFunctions.create(new ReactorClientHttpConnector());
+        ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create(backend.url("/api/clock/alarms"))).build();
+
+        StepVerifier.create(new DeadlineFilter().filter(request, exchange)
+                        .flatMap(response -> response.bodyToMono(String.class))
+                        .contextWrite(Deadline.fromRequestTimeout(300L)))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void reportsANettyResponseTimeoutAsTheDeadlinePassing() {
+        ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/api/clock/alarms")).build();
+        ExchangeFunction timingOut = clientRequest -> Mono.error(new WebClientRequestException(
+                ReadTimeoutException.INSTANCE, HttpMethod.GET, clientRequest.url(), HttpHeaders.EMPTY));
+
+        StepVerifier.create(new DeadlineFilter().filter(request, timingOut)
+                        .contextWrite(Deadline.fromRequestTimeout(1000L)))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void passesThroughWithoutADeadline() {
+        backend.enqueueJson(ALARMS);
+
+        StepVerifier.create(getAlarms())
+                .assertNext(response -> assertThat(response.getAlarm1()).isEqualTo("Time to get up"))
+                .verifyComplete();
+    }
+
+    private Mono<WokeResponse> getAlarms() {
+        return webClient.get()
+                .uri("/api/clock/alarms")
+                .retrieve()
+                .bodyToMono(WokeResponse.class);
+    }
+}
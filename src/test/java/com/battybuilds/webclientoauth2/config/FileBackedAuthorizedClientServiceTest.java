@@ -0,0 +1,174 @@
+package com.battybuilds.webclientoauth2.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.InMemoryReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.registration.InMemoryReactiveClientRegistrationRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileBackedAuthorizedClientServiceTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString("0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+    private static final String OTHER_KEY = Base64.getEncoder().encodeToString("fedcba9876543210".getBytes(StandardCharsets.UTF_8));
+
+    private final InMemoryReactiveClientRegistrationRepository clientRegistrations = OAuth2TestClients.clientRegistrations();
+
+    private final Authentication tenant = TenantAuthentication.of("tenant-1");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresUnexpiredTokensAfterRestart() {
+        storeWith(KEY).saveAuthorizedClient(authorizedClient("mock-Token", Duration.ofHours(1)), tenant).block();
+
+        InMemoryReactiveOAuth2AuthorizedClientService restarted = newCache();
+        storeWith(KEY).restoreInto(restarted).block();
+
+        OAuth2AuthorizedClient restored = restarted.<OAuth2AuthorizedClient>loadAuthorizedClient("abc", "tenant-1").block();
+        assertThat(restored.getAccessToken().getTokenValue()).isEqualTo("mock-Token");
+        assertThat(restored.getAccessToken().getScopes()).containsExactly("alarms");
+    }
+
+    @Test
+    void encryptsTokensAtRest() throws Exception {
+        storeWith(KEY).saveAuthorizedClient(authorizedClient("mock-Token", Duration.ofHours(1)), tenant).block();
+
+        List<Path> files = tokenFiles();
+        assertThat(files).hasSize(1);
+        assertThat(new String(Files.readAllBytes(files.get(0)), StandardCharsets.ISO_8859_1))
+                .doesNotContain("mock-Token")
+                .doesNotContain("tenant-1");
+    }
+
+    @Test
+    void dropsExpiredTokensOnRestore() throws Exception {
+        storeWith(KEY).saveAuthorizedClient(authorizedClient("mock-Token", Duration.ofMillis(1)), tenant).block();
+        Thread.sleep(10);
+
+        InMemoryReactiveOAuth2AuthorizedClientService restarted = newCache();
+        storeWith(KEY).restoreInto(restarted).block();
+
+        assertThat(restarted.loadAuthorizedClient("abc", "tenant-1").block()).isNull();
+        assertThat(tokenFiles()).isEmpty();
+    }
+
+    @Test
+    void ignoresFilesWrittenWithAnotherKey() throws Exception {
+        storeWith(OTHER_KEY).saveAuthorizedClient(authorizedClient("mock-Token", Duration.ofHours(1)), tenant).block();
+
+        InMemoryReactiveOAuth2AuthorizedClientService restarted = newCache();
+        storeWith(KEY).restoreInto(restarted).block();
+
+        assertThat(restarted.loadAuthorizedClient("abc", "tenant-1").block()).isNull();
+        assertThat(tokenFiles()).isEmpty();
+    }
+
+    @Test
+    void removingAClientDeletesItsFile() throws Exception {
+        FileBackedAuthorizedClientService store = storeWith(KEY);
+        store.saveAuthorizedClient(authorizedClient("mock-Token", Duration.ofHours(1)), tenant).block();
+
+        store.removeAuthorizedClient("abc", "tenant-1").block();
+
+        assertThat(store.loadAuthorizedClient("abc", "tenant-1").block()).isNull();
+        assertThat(tokenFiles()).isEmpty();
+    }
+
+    @Test
+    void restoringDoesNotRewriteTheFiles() throws Exception {
+        storeWith(KEY).saveAuthorizedClient(authorizedClient("mock-Token", Duration.ofHours(1)), tenant).block();
+        byte[] written = Files.readAllBytes(tokenFiles().get(0));
+
+        FileBackedAuthorizedClientService restarted = storeWith(KEY);
+        restarted.restoreInto(restarted).block();
+
+        assertThat(restarted.<OAuth2AuthorizedClient>loadAuthorizedClient("abc", "tenant-1").block()).isNotNull();
+        assertThat(tokenFiles()).hasSize(1);
+        assertThat(Files.readAllBytes(tokenFiles().get(0))).isEqualTo(written);
+    }
+
+    @Test
+    void restoringKeepsClientsFetchedSinceStartup() {
+        storeWith(KEY).saveAuthorizedClient(authorizedClient("old-Token", Duration.ofHours(1)), tenant).block();
+
+        FileBackedAuthorizedClientService restarted = storeWith(KEY);
+        restarted.saveAuthorizedClient(authorizedClient("new-Token", Duration.ofHours(1)), tenant).block();
+        restarted.restoreInto(restarted).block();
+
+        OAuth2AuthorizedClient current = restarted.<OAuth2AuthorizedClient>loadAuthorizedClient("abc", "tenant-1").block();
+        assertThat(current.getAccessToken().getTokenValue()).isEqualTo("new-Token");
+    }
+
+    @Test
+    void evictingAClientDeletesItsFile() throws Exception {
+        InMemoryReactiveOAuth2AuthorizedClientService cache = newCache();
+        FileBackedAuthorizedClientService store = new FileBackedAuthorizedClientService(cache, clientRegistrations,
+                directory, KEY);
+        OAuth2AuthorizedClient authorizedClient = authorizedClient("mock-Token", Duration.ofHours(1));
+        store.saveAuthorizedClient(authorizedClient, tenant).block();
+
+        cache.removeAuthorizedClient("abc", "tenant-1").block();
+        store.onEvicted(authorizedClient);
+
+        Instant deadline = Instant.now().plusSeconds(5);
+        while (!tokenFiles().isEmpty() && Instant.now().isBefore(deadline)) {
+            Thread.sleep(10);
+        }
+        assertThat(tokenFiles()).isEmpty();
+    }
+
+    @Test
+    void leavesNoTempFileBehindWhenTheMoveFails() throws Exception {
+        FileBackedAuthorizedClientService store = storeWith(KEY);
+        store.saveAuthorizedClient(authorizedClient("mock-Token", Duration.ofHours(1)), tenant).block();
+        Path tokenFile = tokenFiles().get(0);
+        Files.delete(tokenFile);
+        Files.createFile(Files.createDirectory(tokenFile).resolve("blocker"));
+
+        store.saveAuthorizedClient(authorizedClient("new-Token", Duration.ofHours(1)), tenant).block();
+
+        assertThat(tokenFiles()).containsExactly(tokenFile);
+    }
+
+    @Test
+    void rejectsKeysThatAreNotAnAesKeyLength() {
+        String shortKey = Base64.getEncoder().encodeToString("too-short".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> storeWith(shortKey))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("16, 24 or 32 bytes");
+    }
+
+    private FileBackedAuthorizedClientService storeWith(String key) {
+        return new FileBackedAuthorizedClientService(newCache(), clientRegistrations, directory, key);
+    }
+
+    private InMemoryReactiveOAuth2AuthorizedClientService newCache() {
+        return new InMemoryReactiveOAuth2AuthorizedClientService(clientRegistrations);
+    }
+
+    private List<Path> tokenFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private OAuth2AuthorizedClient authorizedClient(String tokenValue, Duration lifetime) {
+        return OAuth2TestClients.authorizedClient(tenant.getName(), tokenValue, lifetime);
+    }
+}
@@ -0,0 +1,112 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgingFilterTest {
+
+    private static final int WARM_UP = 100;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/api/clock/alarms"))
+            .build();
+
+    @Test
+    void hedgesASlowFirstAttemptAndTakesTheFasterAnswer() {
+        AtomicInteger calls = new AtomicInteger();
+        HedgingFilter filter = new HedgingFilter("abc", 0.95, Duration.ofMillis(20), 0.05, meterRegistry);
+        ExchangeFunction backend = slowOnCall(calls, WARM_UP + 1);
+        warmUp(filter, backend);
+
+        long start = System.nanoTime();
+        ClientResponse response = filter.filter(request, backend).block(Duration.ofSeconds(5));
+
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(calls.get()).isEqualTo(WARM_UP + 2);
+        assertThat(meterRegistry.get("http.client.hedge.sent").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("http.client.hedge.won").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotHedgeWithoutBudget() {
+        AtomicInteger calls = new AtomicInteger();
+        HedgingFilter filter = new HedgingFilter("abc", 0.95, Duration.ofMillis(20), 0, meterRegistry);
+        ExchangeFunction backend = slowOnCall(calls, WARM_UP + 1);
+        warmUp(filter, backend);
+
+        filter.filter(request, backend).block(Duration.ofSeconds(5));
+
+        assertThat(calls.get()).isEqualTo(WARM_UP + 1);
+        assertThat(meterRegistry.get("http.client.hedge.sent").counter().count()).isZero();
+    }
+
+    @Test
+    void neverHedgesNonIdempotentRequests() {
+        AtomicInteger calls = new AtomicInteger();
+        HedgingFilter filter = new HedgingFilter("abc", 0.95, Duration.ofMillis(20), 1, meterRegistry);
+        ExchangeFunction backend = slowOnCall(calls, WARM_UP + 1);
+        warmUp(filter, backend);
+        ClientRequest post = ClientRequest.create(HttpMethod.POST, URI.create("http://localhost/api/clock/alarms")).build();
+
+        filter.filter(post, backend).block(Duration.ofSeconds(5));
+
+        assertThat(calls.get()).isEqualTo(WARM_UP + 1);
+    }
+
+    @Test
+    void releasesTheLosingResponseWhenBothAttemptsAnswerAtOnce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        HedgingFilter filter = new HedgingFilter("abc", 0.95, Duration.ofMillis(20), 1, meterRegistry);
+        warmUp(filter, slowOnCall(calls, -1));
+        CyclicBarrier bothSent = new CyclicBarrier(2);
+        AtomicInteger released = new AtomicInteger();
+        ExchangeFunction racing = clientRequest -> Mono.fromCallable(() -> {
+                    bothSent.await(5, TimeUnit.SECONDS);
+                    return ClientResponse.create(HttpStatus.OK)
+                            .body(Flux.<DataBuffer>empty().doOnSubscribe(subscription -> released.incrementAndGet()))
+                            .build();
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+
+        ClientResponse response = filter.filter(request, racing).block(Duration.ofSeconds(5));
+
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+        Instant deadline = Instant.now().plusSeconds(5);
+        while (released.get() == 0 && Instant.now().isBefore(deadline)) {
+            Thread.sleep(10);
+        }
+        assertThat(released.get()).as("losing response was not released").isEqualTo(1);
+    }
+
+    private void warmUp(HedgingFilter filter, ExchangeFunction backend) {
+        for (int i = 0; i < WARM_UP; i++) {
+            filter.filter(request, backend).block(Duration.ofSeconds(1));
+        }
+    }
+
+    private ExchangeFunction slowOnCall(AtomicInteger calls, int slowCall) {
+        return clientRequest -> {
+            Mono<ClientResponse> response = Mono.fromSupplier(() -> ClientResponse.create(HttpStatus.OK).build());
+            return calls.incrementAndGet() == slowCall ? response.delaySubscription(Duration.ofSeconds(2)) : response;
+        };
+    }
+}
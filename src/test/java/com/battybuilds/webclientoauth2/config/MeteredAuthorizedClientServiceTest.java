@@ -0,0 +1,37 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MeteredAuthorizedClientServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void countsCacheHitsAndMissesPerRegistration() {
+        MeteredAuthorizedClientService clientService = new MeteredAuthorizedClientService(
+                OAuth2TestClients.inMemoryClientService(), meterRegistry, "abc");
+        OAuth2AuthorizedClient authorizedClient =
+                OAuth2TestClients.authorizedClient("tenant-1", "mock-Token", Duration.ofHours(1));
+
+        clientService.loadAuthorizedClient("abc", "tenant-1").block();
+        clientService.saveAuthorizedClient(authorizedClient, TenantAuthentication.of("tenant-1")).block();
+        clientService.loadAuthorizedClient("abc", "tenant-1").block();
+        clientService.loadAuthorizedClient("abc", "tenant-1").block();
+
+        assertThat(cacheCount("hit")).isEqualTo(2);
+        assertThat(cacheCount("miss")).isEqualTo(1);
+    }
+
+    private double cacheCount(String result) {
+        return meterRegistry.get("oauth2.authorized.client.cache")
+                .tags("registration", "abc", "result", result)
+                .counter()
+                .count();
+    }
+}
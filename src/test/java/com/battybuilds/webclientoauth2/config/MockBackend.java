@@ -0,0 +1,56 @@
+package com.battybuilds.webclientoauth2.config;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// A MockWebServer per test. It starts on first use, so a test can still set protocols or a dispatcher first.
+class MockBackend implements AfterEachCallback {
+
+    private final MockWebServer server = new MockWebServer();
+
+    MockWebServer server() {
+        return server;
+    }
+
+    String url() {
+        return server.url("/").toString();
+    }
+
+    String url(String path) {
+        return server.url(path).toString();
+    }
+
+    MockResponse enqueue(MockResponse response) {
+        server.enqueue(response);
+        return response;
+    }
+
+    MockResponse enqueueJson(String body) {
+        return enqueue(json(body));
+    }
+
+    RecordedRequest takeRequest() throws InterruptedException {
+        return server.takeRequest(5, TimeUnit.SECONDS);
+    }
+
+    int requestCount() {
+        return server.getRequestCount();
+    }
+
+    static MockResponse json(String body) {
+        return new MockResponse().setResponseCode(200)
+                .setBody(body)
+                .addHeader("Content-Type", "application/json");
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) throws IOException {
+        server.shutdown();
+    }
+}
@@ -0,0 +1,62 @@
+package com.battybuilds.webclientoauth2.config;
+
+import org.springframework.security.oauth2.client.InMemoryReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AccessTokenResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+final class OAuth2TestClients {
+
+    static final String REGISTRATION_ID = "abc";
+
+    private OAuth2TestClients() {
+    }
+
+    static ClientRegistration registration() {
+        return registration("http://localhost/token");
+    }
+
+    static ClientRegistration registration(String tokenUri) {
+        return ClientRegistration
+                .withRegistrationId(REGISTRATION_ID)
+                .tokenUri(tokenUri)
+                .clientId("456")
+                .clientSecret("abc")
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .build();
+    }
+
+    static InMemoryReactiveClientRegistrationRepository clientRegistrations() {
+        return new InMemoryReactiveClientRegistrationRepository(registration());
+    }
+
+    static InMemoryReactiveOAuth2AuthorizedClientService inMemoryClientService() {
+        return new InMemoryReactiveOAuth2AuthorizedClientService(clientRegistrations());
+    }
+
+    static OAuth2AuthorizedClient authorizedClient(String principalName, String tokenValue, Duration lifetime) {
+        Instant issuedAt = Instant.now();
+        return authorizedClient(principalName, tokenValue, issuedAt, issuedAt.plus(lifetime));
+    }
+
+    static OAuth2AuthorizedClient authorizedClient(String principalName, String tokenValue, Instant issuedAt,
+                                                   Instant expiresAt) {
+        OAuth2AccessToken token = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, tokenValue,
+                issuedAt, expiresAt, Set.of("alarms"));
+        return new OAuth2AuthorizedClient(registration(), principalName, token);
+    }
+
+    static OAuth2AccessTokenResponse tokenResponse(String tokenValue) {
+        return OAuth2AccessTokenResponse.withToken(tokenValue)
+                .tokenType(OAuth2AccessToken.TokenType.BEARER)
+                .expiresIn(3599)
+                .build();
+    }
+}
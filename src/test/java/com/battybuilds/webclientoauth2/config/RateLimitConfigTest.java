@@ -0,0 +1,46 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+
+import static com.battybuilds.webclientoauth2.config.RateLimitFilterTest.filter;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitConfigTest {
+
+    @Test
+    void appliesPerEndpointOverridesOnTopOfTheGlobalLimit() throws Exception {
+        RateLimitFilter filter = rateLimitFilter(environment().withProperty("v2-alarms-rate-limit-burst", "1"));
+
+        assertThat(filter(filter, "/v2/alarms", "tenant-1").getStatus()).isEqualTo(200);
+        assertThat(filter(filter, "/v2/alarms", "tenant-1").getStatus()).isEqualTo(429);
+        assertThat(filter(filter, "/v1/alarms", "tenant-1").getStatus()).isEqualTo(200);
+        assertThat(filter(filter, "/v1/alarms", "tenant-1").getStatus()).isEqualTo(200);
+        assertThat(filter(filter, "/v1/alarms/batch", "tenant-1").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void failsStartupOnANonPositiveRate() {
+        MockEnvironment environment = environment().withProperty("v1-alarm-rate-limit-per-second", "0");
+
+        assertThatThrownBy(() -> rateLimitFilter(environment))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("rate-limit-per-second");
+    }
+
+    private RateLimitFilter rateLimitFilter(MockEnvironment environment) {
+        return new RateLimitConfig().rateLimitFilter(environment, new ObjectMapper(), new SimpleMeterRegistry(),
+                1000, Duration.ofMinutes(10)).getFilter();
+    }
+
+    private MockEnvironment environment() {
+        return new MockEnvironment()
+                .withProperty("rate-limit-per-second", "1")
+                .withProperty("rate-limit-burst", "2");
+    }
+}
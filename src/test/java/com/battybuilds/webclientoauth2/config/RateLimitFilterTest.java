@@ -0,0 +1,59 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitFilter filter = new RateLimitFilter(
+            new TokenBucketRateLimiter(1000, Duration.ofMinutes(10), meterRegistry),
+            Map.of("/v2/alarms", new TokenBucketRateLimiter.Limit(1, 1)),
+            new ObjectMapper(), meterRegistry);
+
+    @Test
+    void rejectsWith429AndRetryAfter() throws Exception {
+        MockHttpServletResponse first = filter(filter, "/v2/alarms", "tenant-1");
+        MockHttpServletResponse second = filter(filter, "/v2/alarms", "tenant-1");
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(second.getStatus()).isEqualTo(429);
+        assertThat(second.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(second.getContentAsString()).contains("context: RATE_LIMITED");
+        assertThat(meterRegistry.get("http.server.requests.rate.limited").tag("uri", "/v2/alarms").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void leavesOtherEndpointsAlone() throws Exception {
+        filter(filter, "/v3/alarms", "tenant-1");
+
+        assertThat(filter(filter, "/v3/alarms", "tenant-1").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void passesRequestsWithoutATenantThrough() throws Exception {
+        filter(filter, "/v2/alarms", null);
+
+        assertThat(filter(filter, "/v2/alarms", null).getStatus()).isEqualTo(200);
+    }
+
+    static MockHttpServletResponse filter(RateLimitFilter filter, String path, String tenant) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (tenant != null) {
+            request.addHeader("Identification-No", tenant);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
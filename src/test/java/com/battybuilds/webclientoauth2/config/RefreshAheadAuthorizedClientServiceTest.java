@@ -0,0 +1,133 @@
+package com.battybuilds.webclientoauth2.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.InMemoryReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshAheadAuthorizedClientServiceTest {
+
+    private final Authentication principal = new AnonymousAuthenticationToken("key", "anonymousUser",
+            AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+    @Test
+    void refreshesTokenInTheBackgroundBeforeItExpires() throws Exception {
+        RefreshAheadAuthorizedClientService clientService = new RefreshAheadAuthorizedClientService(
+                OAuth2TestClients.inMemoryClientService(),
+                grantRequest -> Mono.just(OAuth2TestClients.tokenResponse("refreshed-Token")),
+                0.5);
+
+        clientService.saveAuthorizedClient(authorizedClient("mock-Token", Duration.ofSeconds(2)), principal).block();
+
+        assertThat(currentTokenValue(clientService)).isEqualTo("mock-Token");
+        assertThat(awaitTokenValue(clientService, "refreshed-Token", Duration.ofSeconds(5)))
+                .as("token was not refreshed in the background").isTrue();
+    }
+
+    @Test
+    void doesNotRefreshRemovedClients() throws Exception {
+        AtomicInteger tokenCalls = new AtomicInteger();
+        RefreshAheadAuthorizedClientService clientService = new RefreshAheadAuthorizedClientService(
+                OAuth2TestClients.inMemoryClientService(),
+                grantRequest -> {
+                    tokenCalls.incrementAndGet();
+                    return Mono.just(OAuth2TestClients.tokenResponse("refreshed-Token"));
+                },
+                0.5);
+
+        clientService.saveAuthorizedClient(authorizedClient("mock-Token", Duration.ofSeconds(1)), principal).block();
+        clientService.removeAuthorizedClient("abc", "anonymousUser").block();
+        Thread.sleep(1000);
+
+        assertThat(tokenCalls.get()).isZero();
+    }
+
+    @Test
+    void doesNotRefreshClientsTheDelegateHasEvicted() throws Exception {
+        AtomicInteger tokenCalls = new AtomicInteger();
+        InMemoryReactiveOAuth2AuthorizedClientService delegate = OAuth2TestClients.inMemoryClientService();
+        RefreshAheadAuthorizedClientService clientService = new RefreshAheadAuthorizedClientService(delegate,
+                grantRequest -> {
+                    tokenCalls.incrementAndGet();
+                    return Mono.just(OAuth2TestClients.tokenResponse("refreshed-Token"));
+                },
+                0.5);
+
+        clientService.saveAuthorizedClient(authorizedClient("mock-Token", Duration.ofSeconds(1)), principal).block();
+        delegate.removeAuthorizedClient("abc", "anonymousUser").block();
+        Thread.sleep(1000);
+
+        assertThat(tokenCalls.get()).isZero();
+        assertThat(delegate.loadAuthorizedClient("abc", "anonymousUser").block()).isNull();
+    }
+
+    @Test
+    void doesNotRefreshClientsThatWereNotReadSinceTheLastRefresh() throws Exception {
+        AtomicInteger tokenCalls = new AtomicInteger();
+        RefreshAheadAuthorizedClientService clientService = new RefreshAheadAuthorizedClientService(
+                OAuth2TestClients.inMemoryClientService(),
+                grantRequest -> {
+                    tokenCalls.incrementAndGet();
+                    return Mono.just(OAuth2TestClients.tokenResponse("refreshed-Token"));
+                },
+                0.5);
+
+        clientService.saveAuthorizedClient(authorizedClient("mock-Token", Duration.ofSeconds(1)), principal).block();
+        Thread.sleep(1000);
+
+        assertThat(tokenCalls.get()).isZero();
+        assertThat(clientService.scheduledRefreshCount()).isZero();
+    }
+
+    @Test
+    void dropsThePendingRefreshOfEvictedClients() throws Exception {
+        AtomicInteger tokenCalls = new AtomicInteger();
+        RefreshAheadAuthorizedClientService clientService = new RefreshAheadAuthorizedClientService(
+                OAuth2TestClients.inMemoryClientService(),
+                grantRequest -> {
+                    tokenCalls.incrementAndGet();
+                    return Mono.just(OAuth2TestClients.tokenResponse("refreshed-Token"));
+                },
+                0.5);
+        OAuth2AuthorizedClient authorizedClient = authorizedClient("mock-Token", Duration.ofSeconds(1));
+
+        clientService.saveAuthorizedClient(authorizedClient, principal).block();
+        currentTokenValue(clientService);
+        clientService.onEvicted(authorizedClient);
+
+        assertThat(clientService.scheduledRefreshCount()).isZero();
+        Thread.sleep(1000);
+        assertThat(tokenCalls.get()).isZero();
+    }
+
+    private String currentTokenValue(RefreshAheadAuthorizedClientService clientService) {
+        OAuth2AuthorizedClient current = clientService.<OAuth2AuthorizedClient>loadAuthorizedClient("abc", "anonymousUser")
+                .block(Duration.ofSeconds(1));
+        return current.getAccessToken().getTokenValue();
+    }
+
+    private boolean awaitTokenValue(RefreshAheadAuthorizedClientService clientService, String expected, Duration timeout)
+            throws InterruptedException {
+        Instant deadline = Instant.now().plus(timeout);
+        while (Instant.now().isBefore(deadline)) {
+            if (expected.equals(currentTokenValue(clientService))) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    private OAuth2AuthorizedClient authorizedClient(String tokenValue, Duration lifetime) {
+        return OAuth2TestClients.authorizedClient(principal.getName(), tokenValue, lifetime);
+    }
+}
@@ -0,0 +1,130 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshingJwkSourceTest {
+
+    @RegisterExtension
+    final MockBackend jwkServer = new MockBackend();
+    private RefreshingJwkSource jwkSource;
+
+    @AfterEach
+    void tearDown() {
+        if (jwkSource != null) {
+            jwkSource.destroy();
+        }
+    }
+
+    @Test
+    void prefetchesKeysAtStartup() throws Exception {
+        RSAKey key = generateKey("key-1");
+        jwkServer.enqueue(jwkSetResponse(key));
+
+        jwkSource = startJwkSource(Duration.ofMinutes(1));
+        awaitRequestCount(1);
+
+        assertThat(jwkSource.get(selectorFor("key-1"), null)).extracting(JWK::getKeyID).containsExactly("key-1");
+        assertThat(jwkServer.requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void refetchesOnceForUnknownKeyId() throws Exception {
+        RSAKey oldKey = generateKey("key-1");
+        RSAKey rotatedKey = generateKey("key-2");
+        jwkServer.enqueue(jwkSetResponse(oldKey));
+        jwkServer.enqueue(jwkSetResponse(oldKey, rotatedKey));
+
+        jwkSource = startJwkSource(Duration.ofMinutes(1));
+        awaitRequestCount(1);
+
+        assertThat(jwkSource.get(selectorFor("key-2"), null)).extracting(JWK::getKeyID).containsExactly("key-2");
+        assertThat(jwkSource.get(selectorFor("key-3"), null)).isEmpty();
+        assertThat(jwkServer.requestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentCallersWithAnUnknownKeyIdShareOneRefetch() throws Exception {
+        RSAKey oldKey = generateKey("key-1");
+        RSAKey rotatedKey = generateKey("key-2");
+        jwkServer.enqueue(jwkSetResponse(oldKey));
+        jwkServer.enqueue(jwkSetResponse(oldKey, rotatedKey).setHeadersDelay(300, TimeUnit.MILLISECONDS));
+
+        jwkSource = startJwkSource(Duration.ofMinutes(1));
+        awaitRequestCount(1);
+
+        List<List<String>> keyIds = Flux.range(0, 5)
+                .flatMap(i -> Mono.fromCallable(() -> jwkSource.get(selectorFor("key-2"), null))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .map(keys -> keys.stream().map(JWK::getKeyID).collect(Collectors.toList())))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(keyIds).hasSize(5).allSatisfy(ids -> assertThat(ids).containsExactly("key-2"));
+        assertThat(jwkServer.requestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void keepsServingLastGoodKeysWhenRefreshFails() throws Exception {
+        RSAKey key = generateKey("key-1");
+        jwkServer.enqueue(jwkSetResponse(key));
+        jwkServer.enqueue(new MockResponse().setResponseCode(503));
+
+        jwkSource = startJwkSource(Duration.ofMillis(200));
+        awaitRequestCount(2);
+
+        assertThat(jwkSource.get(selectorFor("key-1"), null)).extracting(JWK::getKeyID).containsExactly("key-1");
+    }
+
+    private RefreshingJwkSource startJwkSource(Duration refreshInterval) {
+        RefreshingJwkSource source = new RefreshingJwkSource(WebClient.create(), jwkServer.url("/jwks"),
+                refreshInterval, Duration.ofSeconds(2), Duration.ofMinutes(1));
+        source.afterPropertiesSet();
+        return source;
+    }
+
+    private void awaitRequestCount(int expected) throws InterruptedException {
+        Instant deadline = Instant.now().plusSeconds(5);
+        while (jwkServer.requestCount() < expected && Instant.now().isBefore(deadline)) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(100);
+    }
+
+    private RSAKey generateKey(String keyId) throws Exception {
+        return new RSAKeyGenerator(2048).keyID(keyId).generate();
+    }
+
+    private JWKSelector selectorFor(String keyId) {
+        return new JWKSelector(new JWKMatcher.Builder().keyID(keyId).build());
+    }
+
+    private MockResponse jwkSetResponse(RSAKey... keys) {
+        List<JWK> publicKeys = new ArrayList<>();
+        for (RSAKey key : keys) {
+            publicKeys.add(key.toPublicJWK());
+        }
+        return MockBackend.json(new JWKSet(publicKeys).toString());
+    }
+}
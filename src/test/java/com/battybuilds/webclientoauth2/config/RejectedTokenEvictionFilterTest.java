@@ -0,0 +1,100 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.security.oauth2.client.AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.ClientCredentialsReactiveOAuth2AuthorizedClientProvider;
+import org.springframework.security.oauth2.client.InMemoryReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.InMemoryReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RejectedTokenEvictionFilterTest {
+
+    private final AtomicInteger tokenCalls = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @RegisterExtension
+    final MockBackend backend = new MockBackend();
+    private WebClient webClient;
+
+    @BeforeEach
+    void setUp() {
+        backend.server().setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if ("Bearer token-1".equals(request.getHeader("Authorization"))) {
+                    return new MockResponse().setResponseCode(401)
+                            .addHeader("WWW-Authenticate", "Bearer error=\"invalid_token\"");
+                }
+                return new MockResponse().setResponseCode(200).setBody("ok");
+            }
+        });
+        webClient = webClientWithTokenHandling();
+    }
+
+    @Test
+    void evictsTheRejectedTokenAndRetriesOnceWithANewOne() throws Exception {
+        String body = getAlarms().block(Duration.ofSeconds(5));
+
+        assertThat(body).isEqualTo("ok");
+        assertThat(tokenCalls.get()).isEqualTo(2);
+        assertThat(backend.takeRequest().getHeader("Authorization")).isEqualTo("Bearer token-1");
+        assertThat(backend.takeRequest().getHeader("Authorization")).isEqualTo("Bearer token-2");
+        assertThat(meterRegistry.get("oauth2.authorized.client.evictions").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void aStormOfRejectionsTriggersASingleReacquire() {
+        List<String> bodies = Flux.range(0, 20)
+                .flatMap(i -> getAlarms())
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(bodies).hasSize(20).containsOnly("ok");
+        assertThat(tokenCalls.get()).isEqualTo(2);
+    }
+
+    private Mono<String> getAlarms() {
+        return webClient.get()
+                .uri("/api/clock/alarms")
+                .retrieve()
+                .bodyToMono(String.class);
+    }
+
+    private WebClient webClientWithTokenHandling() {
+        InMemoryReactiveClientRegistrationRepository clientRegistrations = OAuth2TestClients.clientRegistrations();
+        InMemoryReactiveOAuth2AuthorizedClientService clientService = new InMemoryReactiveOAuth2AuthorizedClientService(clientRegistrations);
+
+        ClientCredentialsReactiveOAuth2AuthorizedClientProvider provider = new ClientCredentialsReactiveOAuth2AuthorizedClientProvider();
+        provider.setAccessTokenResponseClient(grantRequest -> Mono.delay(Duration.ofMillis(50))
+                .map(tick -> OAuth2TestClients.tokenResponse("token-" + tokenCalls.incrementAndGet())));
+        AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager clientManager =
+                new AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager(clientRegistrations, clientService);
+        clientManager.setAuthorizedClientProvider(provider);
+
+        ServerOAuth2AuthorizedClientExchangeFilterFunction oauth =
+                new ServerOAuth2AuthorizedClientExchangeFilterFunction(new CoalescingAuthorizedClientManager(clientManager));
+        oauth.setDefaultClientRegistrationId("abc");
+
+        return WebClient.builder()
+                .baseUrl(backend.url())
+                .filter(new UnauthorizedRetryFilter()
+                        .andThen(oauth)
+                        .andThen(new RejectedTokenEvictionFilter(clientService, "abc", meterRegistry)))
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.battybuilds.webclientoauth2.WokeResponse;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCoalescingFilterTest {
+
+    @RegisterExtension
+    final MockBackend backend = new MockBackend();
+
+    @Test
+    void concurrentIdenticalGetsShareOneBackendCall() {
+        WebClient webClient = coalescingWebClient();
+        backend.enqueue(MockBackend.json("{\"alarm1\":\"Time to get up\"}")
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS));
+
+        List<WokeResponse> responses = Flux.range(0, 20)
+                .flatMap(i -> webClient.get()
+                        .uri("/api/clock/alarms")
+                        .header("Identification-Id", "1234")
+                        .retrieve()
+                        .bodyToMono(WokeResponse.class))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(responses).hasSize(20).allMatch(response -> "Time to get up".equals(response.getAlarm1()));
+        assertThat(backend.requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void streamingReadsAreNotCoalesced() {
+        WebClient webClient = coalescingWebClient();
+        for (int i = 0; i < 3; i++) {
+            backend.enqueue(new MockResponse().setResponseCode(200)
+                    .addHeader("Content-Type", "application/x-ndjson")
+                    .setBody("{\"alarm1\":\"Time to get up\"}\n")
+                    .setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        }
+
+        List<WokeResponse> responses = Flux.range(0, 3)
+                .flatMap(i -> webClient.get()
+                        .uri("/api/clock/alarms")
+                        .header("Identification-Id", "1234")
+                        .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON)
+                        .retrieve()
+                        .bodyToFlux(WokeResponse.class))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(responses).hasSize(3);
+        assertThat(backend.requestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void aShortLeaderDeadlineDoesNotFailTheCallersThatJoinIt() throws Exception {
+        ExchangeStrategies strategies = ExchangeStrategies.withDefaults();
+        WebClient webClient = WebClient.builder()
+                .exchangeStrategies(strategies)
+                .baseUrl(backend.url())
+                .filter(new RequestCoalescingFilter(strategies))
+                .filter(new DeadlineFilter())
+                .build();
+        backend.enqueue(MockBackend.json("{\"alarm1\":\"Time to get up\"}")
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS));
+
+        CompletableFuture<WokeResponse> leader = getAlarms(webClient)
+                .contextWrite(Deadline.fromRequestTimeout(50L))
+                .toFuture();
+        CompletableFuture<WokeResponse> follower = getAlarms(webClient).toFuture();
+
+        assertThat(follower.get(5, TimeUnit.SECONDS).getAlarm1()).isEqualTo("Time to get up");
+        assertThat(leader).hasFailedWithThrowableThat().isInstanceOf(TimeoutException.class);
+        assertThat(backend.requestCount()).isEqualTo(1);
+    }
+
+    private Mono<WokeResponse> getAlarms(WebClient webClient) {
+        return webClient.get()
+                .uri("/api/clock/alarms")
+                .header("Identification-Id", "1234")
+                .retrieve()
+                .bodyToMono(WokeResponse.class);
+    }
+
+    private WebClient coalescingWebClient() {
+        ExchangeStrategies strategies = ExchangeStrategies.withDefaults();
+        return WebClient.builder()
+                .exchangeStrategies(strategies)
+                .baseUrl(backend.url())
+                .filter(new RequestCoalescingFilter(strategies))
+                .build();
+    }
+}
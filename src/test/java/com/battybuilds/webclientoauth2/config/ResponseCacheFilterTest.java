@@ -0,0 +1,172 @@
+package com.battybuilds.webclientoauth2.config;
+
+import com.battybuilds.webclientoauth2.WokeResponse;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheFilterTest {
+
+    @RegisterExtension
+    final MockBackend backend = new MockBackend();
+
+    @Test
+    void servesFreshResponsesFromCache() {
+        WebClient webClient = webClientWithCache(Duration.ofMinutes(1));
+        backend.enqueueJson("{\"alarm1\":\"Time to get up\"}");
+
+        WokeResponse first = getAlarms(webClient);
+        WokeResponse second = getAlarms(webClient);
+
+        assertThat(first.getAlarm1()).isEqualTo("Time to get up");
+        assertThat(second.getAlarm1()).isEqualTo("Time to get up");
+        assertThat(backend.requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void revalidatesStaleResponsesWithETag() throws Exception {
+        WebClient webClient = webClientWithCache(Duration.ZERO);
+        backend.enqueue(MockBackend.json("{\"alarm1\":\"Time to get up\"}").addHeader("ETag", "\"v1\""));
+        backend.enqueue(new MockResponse().setResponseCode(304).addHeader("ETag", "\"v1\""));
+
+        getAlarms(webClient);
+        WokeResponse revalidated = getAlarms(webClient);
+
+        assertThat(revalidated.getAlarm1()).isEqualTo("Time to get up");
+        assertThat(backend.takeRequest().getHeader("If-None-Match")).isNull();
+        RecordedRequest conditionalRequest = backend.takeRequest();
+        assertThat(conditionalRequest.getHeader("If-None-Match")).isEqualTo("\"v1\"");
+    }
+
+    @Test
+    void postInvalidatesCachedResponses() {
+        WebClient webClient = webClientWithCache(Duration.ofMinutes(1));
+        backend.enqueueJson("{\"alarm1\":\"Time to get up\"}");
+        backend.enqueueJson("{\"alarm1\":\"Hello World\"}");
+        backend.enqueueJson("{\"alarm1\":\"Hello World\"}");
+
+        getAlarms(webClient);
+        webClient.post()
+                .uri("/api/clock/alarms")
+                .header("Identification-Id", "1234")
+                .bodyValue("{\"year\":1972}")
+                .retrieve()
+                .bodyToMono(WokeResponse.class)
+                .block(Duration.ofSeconds(5));
+        WokeResponse afterPost = getAlarms(webClient);
+
+        assertThat(afterPost.getAlarm1()).isEqualTo("Hello World");
+        assertThat(backend.requestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void doesNotCacheAReadThatWasInFlightDuringAPost() throws Exception {
+        WebClient webClient = webClientWithCache(Duration.ofMinutes(1));
+        backend.enqueue(MockBackend.json("{\"alarm1\":\"Time to get up\"}")
+                .setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        backend.enqueueJson("{\"alarm1\":\"Hello World\"}");
+        backend.enqueueJson("{\"alarm1\":\"Hello World\"}");
+
+        CompletableFuture<WokeResponse> inFlight = webClient.get()
+                .uri("/api/clock/alarms")
+                .header("Identification-Id", "1234")
+                .retrieve()
+                .bodyToMono(WokeResponse.class)
+                .toFuture();
+        backend.takeRequest();
+        webClient.post()
+                .uri("/api/clock/alarms")
+                .header("Identification-Id", "1234")
+                .bodyValue("{\"year\":1972}")
+                .retrieve()
+                .bodyToMono(WokeResponse.class)
+                .block(Duration.ofSeconds(5));
+        assertThat(inFlight.get(5, TimeUnit.SECONDS).getAlarm1()).isEqualTo("Time to get up");
+        WokeResponse afterPost = getAlarms(webClient);
+
+        assertThat(afterPost.getAlarm1()).isEqualTo("Hello World");
+        assertThat(backend.requestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void doesNotCacheStreamingReads() {
+        WebClient webClient = webClientWithCache(Duration.ofMinutes(1));
+        backend.enqueue(MockBackend.json("{\"alarm1\":\"Time to get up\"}\n").setHeader("Content-Type", "application/x-ndjson"));
+        backend.enqueue(MockBackend.json("{\"alarm1\":\"Time to get up\"}\n").setHeader("Content-Type", "application/x-ndjson"));
+        backend.enqueueJson("{\"alarm1\":\"Time to get up\"}");
+        backend.enqueueJson("{\"alarm1\":\"Time to get up\"}");
+
+        for (int i = 0; i < 2; i++) {
+            webClient.get()
+                    .uri("/api/clock/alarms")
+                    .header("Identification-Id", "1234")
+                    .accept(MediaType.APPLICATION_NDJSON)
+                    .retrieve()
+                    .bodyToFlux(WokeResponse.class)
+                    .blockLast(Duration.ofSeconds(5));
+        }
+        for (int i = 0; i < 2; i++) {
+            webClient.get()
+                    .uri("/api/clock/alarms")
+                    .header("Identification-Id", "1234")
+                    .attribute(StreamingReads.ATTRIBUTE, true)
+                    .retrieve()
+                    .bodyToFlux(DataBuffer.class)
+                    .doOnNext(DataBufferUtils::release)
+                    .blockLast(Duration.ofSeconds(5));
+        }
+
+        assertThat(backend.requestCount()).isEqualTo(4);
+    }
+
+    @Test
+    void cachesEachAcceptedRepresentationSeparately() {
+        WebClient webClient = webClientWithCache(Duration.ofMinutes(1));
+        backend.enqueueJson("{\"alarm1\":\"Time to get up\"}");
+        backend.enqueue(new MockResponse().setResponseCode(200)
+                .addHeader("Content-Type", "text/plain")
+                .setBody("Time to get up"));
+
+        getAlarms(webClient);
+        String plain = webClient.get()
+                .uri("/api/clock/alarms")
+                .header("Identification-Id", "1234")
+                .accept(MediaType.TEXT_PLAIN)
+                .retrieve()
+                .bodyToMono(String.class)
+                .block(Duration.ofSeconds(5));
+
+        assertThat(plain).isEqualTo("Time to get up");
+        assertThat(backend.requestCount()).isEqualTo(2);
+    }
+
+    private WebClient webClientWithCache(Duration timeToLive) {
+        ExchangeStrategies strategies = ExchangeStrategies.withDefaults();
+        return WebClient.builder()
+                .exchangeStrategies(strategies)
+                .baseUrl(backend.url())
+                .filter(new ResponseCacheFilter(100, timeToLive, Duration.ofMinutes(10), strategies))
+                .build();
+    }
+
+    private WokeResponse getAlarms(WebClient webClient) {
+        return webClient.get()
+                .uri("/api/clock/alarms")
+                .header("Identification-Id", "1234")
+                .retrieve()
+                .bodyToMono(WokeResponse.class)
+                .block(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,88 @@
+package com.battybuilds.webclientoauth2.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.InMemoryReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.OAuth2AuthorizationContext;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientProvider;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StaleWhileRevalidateAuthorizedClientProviderTest {
+
+    private static final Instant NOW = Instant.parse("2022-02-01T12:00:00Z");
+
+    private final Authentication tenant = TenantAuthentication.of("tenant-1");
+
+    private final InMemoryReactiveOAuth2AuthorizedClientService clientService = OAuth2TestClients.inMemoryClientService();
+
+    private final AtomicInteger tokenCalls = new AtomicInteger();
+
+    @Test
+    void servesTheCurrentTokenInsideTheGraceWindowAndRefreshesInTheBackground() {
+        Sinks.One<OAuth2AuthorizedClient> slowAzure = Sinks.one();
+        StaleWhileRevalidateAuthorizedClientProvider provider = provider(context -> {
+            tokenCalls.incrementAndGet();
+            return slowAzure.asMono();
+        });
+        OAuth2AuthorizedClient current = authorizedClient("mock-Token", NOW.plus(Duration.ofMinutes(3)));
+
+        assertThat(provider.authorize(contextWith(current)).block(Duration.ofSeconds(1))).isNull();
+        assertThat(provider.authorize(contextWith(current)).block(Duration.ofSeconds(1))).isNull();
+        assertThat(tokenCalls.get()).isEqualTo(1);
+
+        slowAzure.tryEmitValue(authorizedClient("refreshed-Token", NOW.plus(Duration.ofHours(1))));
+        OAuth2AuthorizedClient saved = clientService.<OAuth2AuthorizedClient>loadAuthorizedClient("abc", "tenant-1").block();
+        assertThat(saved.getAccessToken().getTokenValue()).isEqualTo("refreshed-Token");
+    }
+
+    @Test
+    void leavesTokensOutsideTheGraceWindowAlone() {
+        StaleWhileRevalidateAuthorizedClientProvider provider = provider(context -> {
+            tokenCalls.incrementAndGet();
+            return Mono.just(authorizedClient("refreshed-Token", NOW.plus(Duration.ofHours(1))));
+        });
+
+        provider.authorize(contextWith(authorizedClient("mock-Token", NOW.plus(Duration.ofMinutes(30))))).block();
+
+        assertThat(tokenCalls.get()).isZero();
+    }
+
+    @Test
+    void waitsForANewTokenOnceTheCurrentOneIsNoLongerUsable() {
+        StaleWhileRevalidateAuthorizedClientProvider provider = provider(context -> {
+            tokenCalls.incrementAndGet();
+            return Mono.just(authorizedClient("refreshed-Token", NOW.plus(Duration.ofHours(1))));
+        });
+
+        OAuth2AuthorizedClient authorized = provider
+                .authorize(contextWith(authorizedClient("mock-Token", NOW.plus(Duration.ofSeconds(30)))))
+                .block();
+
+        assertThat(authorized.getAccessToken().getTokenValue()).isEqualTo("refreshed-Token");
+        assertThat(tokenCalls.get()).isEqualTo(1);
+    }
+
+    private StaleWhileRevalidateAuthorizedClientProvider provider(ReactiveOAuth2AuthorizedClientProvider azure) {
+        return new StaleWhileRevalidateAuthorizedClientProvider(azure, clientService, Duration.ofSeconds(60),
+                Duration.ofMinutes(5), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private OAuth2AuthorizationContext contextWith(OAuth2AuthorizedClient authorizedClient) {
+        return OAuth2AuthorizationContext.withAuthorizedClient(authorizedClient).principal(tenant).build();
+    }
+
+    private OAuth2AuthorizedClient authorizedClient(String tokenValue, Instant expiresAt) {
+        return OAuth2TestClients.authorizedClient(tenant.getName(), tokenValue, expiresAt.minus(Duration.ofHours(1)),
+                expiresAt);
+    }
+}
@@ -0,0 +1,81 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final TokenBucketRateLimiter limiter =
+            new TokenBucketRateLimiter(1000, Duration.ofMinutes(10), new SimpleMeterRegistry(), now::get);
+    private final TokenBucketRateLimiter.Limit tenPerSecond = new TokenBucketRateLimiter.Limit(10, 5);
+
+    @Test
+    void admitsABurstThenAsksTheCallerToWait() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("tenant-1", tenPerSecond)).isZero();
+        }
+
+        assertThat(limiter.tryAcquire("tenant-1", tenPerSecond)).isEqualTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() {
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("tenant-1", tenPerSecond);
+        }
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertThat(limiter.tryAcquire("tenant-1", tenPerSecond)).isZero();
+        assertThat(limiter.tryAcquire("tenant-1", tenPerSecond)).isPositive();
+    }
+
+    @Test
+    void keepsABucketPerKey() {
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("tenant-1", tenPerSecond);
+        }
+
+        assertThat(limiter.tryAcquire("tenant-1", tenPerSecond)).isPositive();
+        assertThat(limiter.tryAcquire("tenant-2", tenPerSecond)).isZero();
+    }
+
+    @Test
+    void admitsExactlyTheBurstUnderContention() throws Exception {
+        TokenBucketRateLimiter.Limit burstOf100 = new TokenBucketRateLimiter.Limit(1, 100);
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            executor.submit(() -> {
+                if (limiter.tryAcquire("tenant-1", burstOf100).isZero()) {
+                    admitted.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(admitted.get()).isEqualTo(100);
+    }
+
+    @Test
+    void rejectsLimitsThatWouldOverflowTheBucket() {
+        assertThatThrownBy(() -> new TokenBucketRateLimiter.Limit(0, 5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucketRateLimiter.Limit(-1, 5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucketRateLimiter.Limit(Double.NaN, 5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucketRateLimiter.Limit(10, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucketRateLimiter.Limit(0.001, Integer.MAX_VALUE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
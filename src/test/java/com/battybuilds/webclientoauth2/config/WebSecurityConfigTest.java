@@ -0,0 +1,67 @@
+package com.battybuilds.webclientoauth2.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebSecurityConfigTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger decodeCalls = new AtomicInteger();
+
+    @Test
+    void cachesDecodedTokenUntilItExpires() {
+        JwtDecoder decoder = WebSecurityConfig.wrapJwtDecoderWithAudienceCheck(
+                countingDecoder("audience1234"), "audience1234", new DecodedJwtCache(100, meterRegistry));
+
+        Jwt first = decoder.decode("token-1");
+        Jwt second = decoder.decode("token-1");
+
+        assertThat(second).isSameAs(first);
+        assertThat(decodeCalls.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "jwt.decode.cache").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void cachesAudienceMismatchWithTheToken() {
+        JwtDecoder decoder = WebSecurityConfig.wrapJwtDecoderWithAudienceCheck(
+                countingDecoder("someone-else"), "audience1234", new DecodedJwtCache(100, meterRegistry));
+
+        assertThatThrownBy(() -> decoder.decode("token-1")).isInstanceOf(OAuth2AuthenticationException.class);
+        assertThatThrownBy(() -> decoder.decode("token-1")).isInstanceOf(OAuth2AuthenticationException.class);
+        assertThat(decodeCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void decodesDifferentTokensSeparately() {
+        JwtDecoder decoder = WebSecurityConfig.wrapJwtDecoderWithAudienceCheck(
+                countingDecoder("audience1234"), "audience1234", new DecodedJwtCache(100, meterRegistry));
+
+        decoder.decode("token-1");
+        decoder.decode("token-2");
+
+        assertThat(decodeCalls.get()).isEqualTo(2);
+    }
+
+    private JwtDecoder countingDecoder(String audience) {
+        return token -> {
+            decodeCalls.incrementAndGet();
+            return Jwt.withTokenValue(token)
+                    .header("alg", "RS256")
+                    .claim("aud", List.of(audience))
+                    .issuedAt(Instant.now())
+                    .expiresAt(Instant.now().plusSeconds(300))
+                    .build();
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package com.battybuilds.webclientoauth2.controller;
+
+import com.battybuilds.webclientoauth2.config.BackendOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+class PassThroughWriterTest {
+
+    private final PassThroughWriter writer = new PassThroughWriter(1);
+
+    @AfterEach
+    void tearDown() {
+        writer.destroy();
+    }
+
+    @Test
+    void shedsStreamsOnceEveryWriterThreadHasOne() {
+        Sinks.Many<DataBuffer> backend = Sinks.many().unicast().onBackpressureBuffer();
+        Disposable slowStream = writer.stream(backend.asFlux()).subscribe();
+
+        StepVerifier.create(writer.stream(Flux.empty()))
+                .expectError(BackendOverloadedException.class)
+                .verify(Duration.ofSeconds(1));
+
+        slowStream.dispose();
+        StepVerifier.create(writer.stream(Flux.empty()))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+}
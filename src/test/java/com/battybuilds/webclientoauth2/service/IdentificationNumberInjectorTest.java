@@ -0,0 +1,73 @@
+package com.battybuilds.webclientoauth2.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdentificationNumberInjectorTest {
+
+    @Test
+    void injectsTheFieldAtTheStartOfTheObject() {
+        assertThat(rewrite("app-id", "{\"alarm1\":\"Time to get up\"}"))
+                .isEqualTo("{\"identificationNumber\":\"app-id\",\"alarm1\":\"Time to get up\"}");
+    }
+
+    @Test
+    void handlesAnEmptyObject() {
+        assertThat(rewrite("app-id", " { }")).isEqualTo(" {\"identificationNumber\":\"app-id\" }");
+    }
+
+    @Test
+    void handlesTheOpeningBraceSplitAcrossBuffers() {
+        assertThat(rewrite("app-id", "  ", "{", "\n ", "\"alarm1\":", "\"Time to get up\"}"))
+                .isEqualTo("  {\"identificationNumber\":\"app-id\"\n ,\"alarm1\":\"Time to get up\"}");
+    }
+
+    @Test
+    void replacesTheBackendsOwnIdentificationNumber() {
+        assertThat(rewrite("app-id", "{\"identificationNumber\":\"backend\"}"))
+                .isEqualTo("{\"identificationNumber\":\"app-id\"}");
+        assertThat(rewrite("app-id", "{\"identificationNumber\":\"backend\",\"alarm1\":\"Time to get up\"}"))
+                .isEqualTo("{\"identificationNumber\":\"app-id\",\"alarm1\":\"Time to get up\"}");
+        assertThat(rewrite("app-id", "{\"alarm1\":\"Time to get up\",\"identificationNumber\":{\"a\":[1,\"}\"]}}"))
+                .isEqualTo("{\"identificationNumber\":\"app-id\",\"alarm1\":\"Time to get up\"}");
+    }
+
+    @Test
+    void replacesAFieldSplitAcrossBuffers() {
+        assertThat(rewrite("app-id", "{\"alarm1\":\"Time to get up\" , \"identif", "icationNumber\" : 12 ", ",\"alarm2\":\"Late\"}"))
+                .isEqualTo("{\"identificationNumber\":\"app-id\",\"alarm1\":\"Time to get up\" ,\"alarm2\":\"Late\"}");
+    }
+
+    @Test
+    void leavesNestedAndSimilarFieldsAlone() {
+        assertThat(rewrite("app-id", "{\"nested\":{\"identificationNumber\":\"keep\"},\"identificationNumberX\":1}"))
+                .isEqualTo("{\"identificationNumber\":\"app-id\",\"nested\":{\"identificationNumber\":\"keep\"},\"identificationNumberX\":1}");
+        assertThat(rewrite("app-id", "{\"alarm1\":\"\\\"identificationNumber\\\",\"}"))
+                .isEqualTo("{\"identificationNumber\":\"app-id\",\"alarm1\":\"\\\"identificationNumber\\\",\"}");
+    }
+
+    @Test
+    void escapesTheIdentificationNumber() {
+        assertThat(rewrite("a\"b", "{}")).isEqualTo("{\"identificationNumber\":\"a\\\"b\"}");
+    }
+
+    @Test
+    void leavesNonObjectBodiesUntouched() {
+        assertThat(rewrite("app-id", "[{\"alarm1\":\"Time to get up\"}]")).isEqualTo("[{\"alarm1\":\"Time to get up\"}]");
+    }
+
+    private String rewrite(String identificationNumber, String... chunks) {
+        Flux<DataBuffer> body = Flux.fromArray(chunks)
+                .map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+        DataBuffer joined = DataBufferUtils.join(body.transform(IdentificationNumberInjector.inject(identificationNumber)))
+                .block();
+        return joined.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,51 @@
+package com.battybuilds.webclientoauth2.service;
+
+import com.battybuilds.webclientoauth2.AlarmRequest;
+import com.battybuilds.webclientoauth2.WokeResponse;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WokeServiceTest {
+
+    private final MockWebServer backend = new MockWebServer();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        backend.shutdown();
+    }
+
+    @Test
+    void returnsTheItemsASlowBatchLeavesUnfinishedAsErrors() {
+        backend.enqueue(json("{\"alarm1\": \"Hello World\"}"));
+        backend.enqueue(json("{\"alarm1\": \"Too late\"}").setHeadersDelay(2, TimeUnit.SECONDS));
+        backend.enqueue(json("{\"alarm1\": \"Too late\"}"));
+        WokeService service = new WokeService(WebClient.create(backend.url("/").toString()), 1, 10,
+                Duration.ofMillis(500));
+        AlarmRequest alarm = AlarmRequest.builder().day(10).hour(10).month(10).year(1972).message("Hi").build();
+
+        StepVerifier.create(service.addAlarms(List.of(alarm, alarm, alarm), "app-id"))
+                .assertNext(response -> assertThat(response.getAlarm1()).isEqualTo("Hello World"))
+                .assertNext(response -> assertThat(response.getError()).isEqualTo("Request deadline exceeded"))
+                .assertNext(response -> assertThat(response.getError()).isEqualTo("Request deadline exceeded"))
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+        assertThat(backend.getRequestCount()).isEqualTo(2);
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setResponseCode(200)
+                .setBody(body)
+                .addHeader("Content-Type", "application/json");
+    }
+}